@@ -1,5 +1,7 @@
 package com.financeportal;
 
+import com.financeportal.dao.BalanceSnapshotDAO;
+import com.financeportal.dao.BranchDAO;
 import com.financeportal.dao.DBConnection;
 import com.financeportal.ui.LoginFrame;
 
@@ -47,6 +49,16 @@ public class App {
                 System.exit(1);
             }
 
+            // Branch reference data is served from memory from here on
+            try {
+                BranchDAO.preloadSnapshot();
+            } catch (SQLException e) {
+                System.err.println("Warning: could not preload branches: " + e.getMessage());
+            }
+
+            // daily closing-balance checkpoints for as-of-date balance queries
+            BalanceSnapshotDAO.scheduleDaily();
+
             // Launch login form
             LoginFrame login = new LoginFrame();
             login.setVisible(true);
@@ -6,24 +6,49 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * DAO for account table.
+ *
+ * Every statement that changes a balance also increments account.version, so readers can
+ * detect concurrent changes with compareAndSetBalance (optimistic concurrency):
+ *   ALTER TABLE account ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
  */
 public class AccountDAO {
 
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS =
+            "account_id, account_number, account_holder_id, account_type, balance, created_at, status, version";
+    private static final String CREATE_SQL =
+            "INSERT INTO account (account_number, account_holder_id, account_type, balance, created_at, status) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String GET_BY_ID_SQL =
+            "SELECT " + COLUMNS + " FROM account WHERE account_id = ?";
+    private static final String GET_BY_NUMBER_SQL =
+            "SELECT " + COLUMNS + " FROM account WHERE account_number = ?";
+    private static final String LIST_BY_HOLDER_SQL =
+            "SELECT " + COLUMNS + " FROM account WHERE account_holder_id = ? ORDER BY created_at DESC";
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE account SET balance = ?, version = version + 1 WHERE account_id = ?";
+    private static final String CAS_BALANCE_SQL =
+            "UPDATE account SET balance = ?, version = version + 1 WHERE account_id = ? AND version = ?";
+    private static final String ADD_DELTA_SQL =
+            "UPDATE account SET balance = balance + ?, version = version + 1 WHERE account_id = ?";
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE account SET balance = balance + ?, version = version + 1 WHERE account_id = ? AND balance + ? >= 0";
+    private static final String DEACTIVATE_SQL =
+            "UPDATE account SET status = 'INACTIVE' WHERE account_id = ?";
+
     public int create(Account account) throws SQLException {
-        String sql = "INSERT INTO account (account_number, account_holder_id, account_type, balance, created_at, status) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            ps.setString(1, account.getAccountNumber());
-            ps.setInt(2, account.getAccountHolderID());
-            ps.setString(3, account.getAccountType());
-            ps.setBigDecimal(4, account.getBalance() == null ? BigDecimal.ZERO : account.getBalance());
-            ps.setTimestamp(5, Timestamp.valueOf(account.getCreatedAt() == null ? LocalDateTime.now() : account.getCreatedAt()));
-            ps.setString(6, account.getStatus() == null ? "ACTIVE" : account.getStatus());
+            bindInsert(ps, account);
 
             ps.executeUpdate();
             try (ResultSet rs = ps.getGeneratedKeys()) {
@@ -37,10 +62,33 @@ public class AccountDAO {
         return -1;
     }
 
+    /**
+     * Insert many accounts on a new connection, all or nothing (bulk onboarding).
+     * Generated ids are set back on each Account.
+     * @return number of rows inserted
+     */
+    public int createBatch(List<Account> accounts) throws SQLException {
+        return BatchInsert.insertInTransaction(CREATE_SQL, accounts, BatchInsert.DEFAULT_CHUNK_SIZE,
+                AccountDAO::bindInsert, Account::setAccountID);
+    }
+
+    /**
+     * Insert many accounts with JDBC batching on the given connection (caller controls commit).
+     */
+    public int createBatch(List<Account> accounts, Connection conn) throws SQLException {
+        return createBatch(accounts, conn, BatchInsert.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Same as createBatch(accounts, conn) with an explicit number of rows per executeBatch.
+     */
+    public int createBatch(List<Account> accounts, Connection conn, int chunkSize) throws SQLException {
+        return BatchInsert.insert(conn, CREATE_SQL, accounts, chunkSize, AccountDAO::bindInsert, Account::setAccountID);
+    }
+
     public Account getById(int accountId) throws SQLException {
-        String sql = "SELECT * FROM account WHERE account_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, GET_BY_ID_SQL)) {
             ps.setInt(1, accountId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -50,9 +98,8 @@ public class AccountDAO {
     }
 
     public Account getByNumber(String accountNumber) throws SQLException {
-        String sql = "SELECT * FROM account WHERE account_number = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, GET_BY_NUMBER_SQL)) {
             ps.setString(1, accountNumber);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -61,11 +108,42 @@ public class AccountDAO {
         return null;
     }
 
+    /**
+     * Lock the given account rows (SELECT ... FOR UPDATE) on the caller's transaction, in ascending id order.
+     * Ids are sorted and sent in chunks of BatchInsert.DEFAULT_CHUNK_SIZE; each chunk is a primary-key
+     * IN list scanned in ascending order, so every caller acquires row locks in the same global order.
+     *
+     * @return the locked accounts keyed by id in ascending order; ids that do not exist are absent
+     */
+    public SortedMap<Integer, Account> lockForUpdate(Collection<Integer> accountIds, Connection conn) throws SQLException {
+        SortedMap<Integer, Account> locked = new TreeMap<>();
+        if (accountIds == null || accountIds.isEmpty()) return locked;
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(accountIds));
+        for (int from = 0; from < ids.size(); from += BatchInsert.DEFAULT_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + BatchInsert.DEFAULT_CHUNK_SIZE, ids.size()));
+            StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM account WHERE account_id IN (");
+            for (int i = 0; i < chunk.size(); i++) sql.append(i == 0 ? "?" : ", ?");
+            sql.append(") ORDER BY account_id FOR UPDATE");
+
+            // the placeholder count varies per call, so this one bypasses StatementCache
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int i = 1;
+                for (Integer id : chunk) ps.setInt(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Account a = mapRow(rs);
+                        locked.put(a.getAccountID(), a);
+                    }
+                }
+            }
+        }
+        return locked;
+    }
+
     public List<Account> listByHolder(int holderId) throws SQLException {
-        String sql = "SELECT * FROM account WHERE account_holder_id = ? ORDER BY created_at DESC";
         List<Account> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_BY_HOLDER_SQL)) {
             ps.setInt(1, holderId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) list.add(mapRow(rs));
@@ -76,12 +154,27 @@ public class AccountDAO {
 
     /**
      * Update balance using provided connection for atomic operations.
+     * This is a blind overwrite; prefer compareAndSetBalance or applyDelta.
      */
     public boolean updateBalance(int accountId, BigDecimal newBalance, Connection conn) throws SQLException {
-        String sql = "UPDATE account SET balance = ? WHERE account_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = StatementCache.prepare(conn, UPDATE_BALANCE_SQL)) {
+            ps.setBigDecimal(1, newBalance);
+            ps.setInt(2, accountId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Set the balance only if the row still has the version the caller read (optimistic concurrency).
+     * No row lock is held between the read and this statement.
+     *
+     * @return true if applied; false if the account changed since it was read (or does not exist)
+     */
+    public boolean compareAndSetBalance(int accountId, long expectedVersion, BigDecimal newBalance, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, CAS_BALANCE_SQL)) {
             ps.setBigDecimal(1, newBalance);
             ps.setInt(2, accountId);
+            ps.setLong(3, expectedVersion);
             return ps.executeUpdate() == 1;
         }
     }
@@ -95,25 +188,105 @@ public class AccountDAO {
         }
     }
 
+    /**
+     * Add a signed amount to the balance in a single guarded statement (no read-modify-write).
+     * The update only applies if the resulting balance stays >= 0.
+     *
+     * @param delta positive to credit, negative to debit
+     * @return true if applied; false if the account does not exist or funds are insufficient
+     */
+    public boolean applyDelta(int accountId, BigDecimal delta, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, APPLY_DELTA_SQL)) {
+            ps.setBigDecimal(1, delta);
+            ps.setInt(2, accountId);
+            ps.setBigDecimal(3, delta);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Apply many guarded deltas (see applyDelta) with one JDBC batch on the given connection.
+     * Entries are sent in the map's iteration order; pass a sorted map to lock rows in id order.
+     *
+     * @return ids of accounts whose update did not apply (missing or insufficient funds); empty if all applied
+     */
+    public List<Integer> applyDeltaBatch(Map<Integer, BigDecimal> deltas, Connection conn) throws SQLException {
+        List<Integer> failed = new ArrayList<>();
+        if (deltas == null || deltas.isEmpty()) return failed;
+        try (PreparedStatement ps = StatementCache.prepare(conn, APPLY_DELTA_SQL)) {
+            List<Integer> ids = new ArrayList<>(deltas.size());
+            for (Map.Entry<Integer, BigDecimal> e : deltas.entrySet()) {
+                ps.setBigDecimal(1, e.getValue());
+                ps.setInt(2, e.getKey());
+                ps.setBigDecimal(3, e.getValue());
+                ps.addBatch();
+                ids.add(e.getKey());
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.SUCCESS_NO_INFO)
+                    throw new SQLException("Driver did not report per-row update counts for the balance batch");
+                if (counts[i] != 1) failed.add(ids.get(i));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Unguarded variant of applyDeltaBatch for projecting balance changes that were already
+     * validated elsewhere (LedgerEngine); the balance is never checked against zero.
+     *
+     * @return ids of accounts that were not found; empty if all applied
+     */
+    public List<Integer> addDeltaBatch(Map<Integer, BigDecimal> deltas, Connection conn) throws SQLException {
+        List<Integer> failed = new ArrayList<>();
+        if (deltas == null || deltas.isEmpty()) return failed;
+        try (PreparedStatement ps = StatementCache.prepare(conn, ADD_DELTA_SQL)) {
+            List<Integer> ids = new ArrayList<>(deltas.size());
+            for (Map.Entry<Integer, BigDecimal> e : deltas.entrySet()) {
+                ps.setBigDecimal(1, e.getValue());
+                ps.setInt(2, e.getKey());
+                ps.addBatch();
+                ids.add(e.getKey());
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.SUCCESS_NO_INFO)
+                    throw new SQLException("Driver did not report per-row update counts for the balance batch");
+                if (counts[i] != 1) failed.add(ids.get(i));
+            }
+        }
+        return failed;
+    }
+
     public boolean deactivate(int accountId) throws SQLException {
-        String sql = "UPDATE account SET status = 'INACTIVE' WHERE account_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, DEACTIVATE_SQL)) {
             ps.setInt(1, accountId);
             return ps.executeUpdate() == 1;
         }
     }
 
-    private Account mapRow(ResultSet rs) throws SQLException {
+    private static void bindInsert(PreparedStatement ps, Account account) throws SQLException {
+        ps.setString(1, account.getAccountNumber());
+        ps.setInt(2, account.getAccountHolderID());
+        ps.setString(3, account.getAccountType());
+        ps.setBigDecimal(4, account.getBalance() == null ? BigDecimal.ZERO : account.getBalance());
+        ps.setTimestamp(5, Timestamp.valueOf(account.getCreatedAt() == null ? LocalDateTime.now() : account.getCreatedAt()));
+        ps.setString(6, account.getStatus() == null ? "ACTIVE" : account.getStatus());
+    }
+
+    private static Account mapRow(ResultSet rs) throws SQLException {
         Account a = new Account();
-        a.setAccountID(rs.getInt("account_id"));
-        a.setAccountNumber(rs.getString("account_number"));
-        a.setAccountHolderID(rs.getInt("account_holder_id"));
-        a.setAccountType(rs.getString("account_type"));
-        a.setBalance(rs.getBigDecimal("balance"));
-        Timestamp ts = rs.getTimestamp("created_at");
+        a.setAccountID(rs.getInt(1));
+        a.setAccountNumber(rs.getString(2));
+        a.setAccountHolderID(rs.getInt(3));
+        a.setAccountType(rs.getString(4));
+        a.setBalance(rs.getBigDecimal(5));
+        Timestamp ts = rs.getTimestamp(6);
         if (ts != null) a.setCreatedAt(ts.toLocalDateTime());
-        a.setStatus(rs.getString("status"));
+        a.setStatus(rs.getString(7));
+        a.setVersion(rs.getLong(8));
         return a;
     }
 }
@@ -7,19 +7,46 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO for account_holder table.
  */
 public class AccountHolderDAO {
 
+    // explicit projections; order must match the positional reads in mapSummaryRow/mapRow.
+    // List views never need password_hash, so it is only selected for single-holder lookups.
+    private static final String SUMMARY_COLUMNS =
+            "account_holder_id, username, email, full_name, role, created_at, last_login, status";
+    private static final String COLUMNS = SUMMARY_COLUMNS + ", password_hash";
+    private static final String CREATE_SQL =
+            "INSERT INTO account_holder (username, password_hash, email, full_name, role, created_at, status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String FIND_BY_ID_SQL =
+            "SELECT " + COLUMNS + " FROM account_holder WHERE account_holder_id = ?";
+    private static final String FIND_BY_USERNAME_SQL =
+            "SELECT " + COLUMNS + " FROM account_holder WHERE username = ?";
+    private static final String UPDATE_LAST_LOGIN_SQL =
+            "UPDATE account_holder SET last_login = ? WHERE account_holder_id = ?";
+    private static final String LIST_ALL_SQL =
+            "SELECT " + SUMMARY_COLUMNS + " FROM account_holder ORDER BY created_at DESC";
+    private static final String DEACTIVATE_SQL =
+            "UPDATE account_holder SET status = 'INACTIVE' WHERE account_holder_id = ?";
+
+    // Shared by every DAO instance (panels create their own). Cached holders are never handed out
+    // directly; callers get a copy so they cannot mutate the cached entry.
+    private static final EntityCache<Integer, AccountHolder> BY_ID = new EntityCache<>(
+            DBConnection.getIntProperty("db.cache.holder.maxSize", 1000),
+            DBConnection.getLongProperty("db.cache.holder.ttlMs", 300_000L));
+    private static final EntityCache<String, Integer> ID_BY_USERNAME = new EntityCache<>(
+            DBConnection.getIntProperty("db.cache.holder.maxSize", 1000),
+            DBConnection.getLongProperty("db.cache.holder.ttlMs", 300_000L));
+
     /**
      * Create a new account holder. Returns generated id (>0) or -1 on failure.
      */
     public int create(AccountHolder ah) throws SQLException {
-        String sql = "INSERT INTO account_holder (username, password_hash, email, full_name, role, created_at, status) VALUES (?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setString(1, ah.getUsername());
             ps.setString(2, ah.getPasswordHash()); // hash should already be set
@@ -34,6 +61,8 @@ public class AccountHolderDAO {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     ah.setAccountHolderID(id);
+                    BY_ID.invalidate(id);
+                    ID_BY_USERNAME.invalidate(ah.getUsername());
                     return id;
                 }
             }
@@ -42,12 +71,49 @@ public class AccountHolderDAO {
     }
 
     /**
-     * Find account holder by id.
+     * Find account holder by id (cached).
      */
     public AccountHolder findById(int id) throws SQLException {
-        String sql = "SELECT * FROM account_holder WHERE account_holder_id = ?";
+        return copy(BY_ID.get(id, this::loadById));
+    }
+
+    /**
+     * Find account holder by username (cached).
+     */
+    public AccountHolder findByUsername(String username) throws SQLException {
+        Integer id = ID_BY_USERNAME.getIfPresent(username);
+        if (id != null) {
+            AccountHolder cached = BY_ID.get(id, this::loadById);
+            if (cached != null && username.equals(cached.getUsername())) return copy(cached);
+            ID_BY_USERNAME.invalidate(username);
+        }
+
+        long gen = BY_ID.generation();
+        AccountHolder ah = loadByUsername(username);
+        if (ah != null) {
+            BY_ID.putIfGeneration(ah.getAccountHolderID(), ah, gen);
+            ID_BY_USERNAME.put(username, ah.getAccountHolderID());
+        }
+        return copy(ah);
+    }
+
+    /**
+     * Cache of holders by id (hit ratio, evictions).
+     */
+    public static EntityCache<Integer, AccountHolder> getHolderCache() {
+        return BY_ID;
+    }
+
+    /**
+     * Cache of username -> id lookups (hit ratio, evictions).
+     */
+    public static EntityCache<String, Integer> getUsernameCache() {
+        return ID_BY_USERNAME;
+    }
+
+    private AccountHolder loadById(int id) throws SQLException {
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_ID_SQL)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -56,13 +122,9 @@ public class AccountHolderDAO {
         return null;
     }
 
-    /**
-     * Find account holder by username.
-     */
-    public AccountHolder findByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM account_holder WHERE username = ?";
+    private AccountHolder loadByUsername(String username) throws SQLException {
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_USERNAME_SQL)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -88,54 +150,91 @@ public class AccountHolderDAO {
      * Update last_login timestamp
      */
     public boolean updateLastLogin(int accountHolderId, LocalDateTime lastLogin) throws SQLException {
-        String sql = "UPDATE account_holder SET last_login = ? WHERE account_holder_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, UPDATE_LAST_LOGIN_SQL)) {
             ps.setTimestamp(1, Timestamp.valueOf(lastLogin));
             ps.setInt(2, accountHolderId);
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            BY_ID.invalidate(accountHolderId);
+            return updated;
         }
     }
 
     /**
-     * List all account holders (careful on large datasets).
+     * List all account holders (careful on large datasets; use streamAll for full-table passes).
+     * password_hash is not loaded.
      */
     public List<AccountHolder> listAll() throws SQLException {
-        String sql = "SELECT * FROM account_holder ORDER BY created_at DESC";
         List<AccountHolder> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_ALL_SQL);
              ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) list.add(mapRow(rs));
+            while (rs.next()) list.add(mapSummaryRow(rs));
         }
         return list;
     }
 
+    /**
+     * Stream all account holders in constant memory (exports, nightly jobs). password_hash is not loaded.
+     * Rows are fetched fetchSize at a time; close the stream to release its connection.
+     */
+    public Stream<AccountHolder> streamAll(int fetchSize) throws SQLException {
+        return ResultSetStream.open(LIST_ALL_SQL, fetchSize, null, AccountHolderDAO::mapSummaryRow);
+    }
+
+    /**
+     * Stream all account holders using the default fetch size (db.stream.fetchSize).
+     */
+    public Stream<AccountHolder> streamAll() throws SQLException {
+        return streamAll(ResultSetStream.DEFAULT_FETCH_SIZE);
+    }
+
     /**
      * Soft deactivate user (status = INACTIVE)
      */
     public boolean deactivate(int accountHolderId) throws SQLException {
-        String sql = "UPDATE account_holder SET status = 'INACTIVE' WHERE account_holder_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, DEACTIVATE_SQL)) {
             ps.setInt(1, accountHolderId);
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            BY_ID.invalidate(accountHolderId);
+            return updated;
         }
     }
 
-    private AccountHolder mapRow(ResultSet rs) throws SQLException {
+    private static AccountHolder copy(AccountHolder src) {
+        if (src == null) return null;
+        AccountHolder a = new AccountHolder();
+        a.setAccountHolderID(src.getAccountHolderID());
+        a.setUsername(src.getUsername());
+        a.setPasswordHash(src.getPasswordHash());
+        a.setEmail(src.getEmail());
+        a.setFullName(src.getFullName());
+        a.setRole(src.getRole());
+        a.setCreatedAt(src.getCreatedAt());
+        a.setLastLogin(src.getLastLogin());
+        a.setStatus(src.getStatus());
+        return a;
+    }
+
+    private static AccountHolder mapRow(ResultSet rs) throws SQLException {
+        AccountHolder a = mapSummaryRow(rs);
+        a.setPasswordHash(rs.getString(9));
+        return a;
+    }
+
+    private static AccountHolder mapSummaryRow(ResultSet rs) throws SQLException {
         AccountHolder a = new AccountHolder();
-        a.setAccountHolderID(rs.getInt("account_holder_id"));
-        a.setUsername(rs.getString("username"));
-        a.setPasswordHash(rs.getString("password_hash"));
-        a.setEmail(rs.getString("email"));
-        a.setFullName(rs.getString("full_name"));
-        a.setRole(rs.getString("role"));
-        Timestamp created = rs.getTimestamp("created_at");
+        a.setAccountHolderID(rs.getInt(1));
+        a.setUsername(rs.getString(2));
+        a.setEmail(rs.getString(3));
+        a.setFullName(rs.getString(4));
+        a.setRole(rs.getString(5));
+        Timestamp created = rs.getTimestamp(6);
         if (created != null) a.setCreatedAt(created.toLocalDateTime());
-        Timestamp last = rs.getTimestamp("last_login");
+        Timestamp last = rs.getTimestamp(7);
         if (last != null) a.setLastLogin(last.toLocalDateTime());
-        a.setStatus(rs.getString("status"));
+        a.setStatus(rs.getString(8));
         return a;
     }
 }
@@ -0,0 +1,229 @@
+package com.financeportal.dao;
+
+import com.financeportal.model.BalanceSnapshot;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAO for balance_snapshot: daily closing-balance checkpoints per account.
+ *
+ * Expected table:
+ *   CREATE TABLE balance_snapshot (
+ *     account_id INT NOT NULL, snapshot_date DATE NOT NULL, balance DECIMAL(15,2) NOT NULL,
+ *     PRIMARY KEY (account_id, snapshot_date));
+ *
+ * A balance as of a date starts from the nearest checkpoint (before or after it) and replays only
+ * the transactions in between, using the (account_id, date, transaction_id) index on transaction.
+ * Every balance change after an account is opened is recorded as a COMPLETED DEBIT/CREDIT
+ * transaction row. The opening deposit is not: it is only in the account's initial balance, so
+ * replay never goes back past created_at (AccountService.getBalanceAsOf returns zero before it).
+ */
+public class BalanceSnapshotDAO {
+
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS = "account_id, snapshot_date, balance";
+    private static final String SIGNED_AMOUNT = "CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END";
+    // closing balance of day D = live balance minus everything posted from D+1 on, for one
+    // account_id range; the derived table alias replaces VALUES(), which MySQL deprecates in
+    // ON DUPLICATE KEY UPDATE
+    private static final String CREATE_DAILY_SQL =
+            "INSERT INTO balance_snapshot (account_id, snapshot_date, balance)"
+                    + " SELECT * FROM (SELECT a.account_id, ? AS snapshot_date, a.balance - COALESCE((SELECT SUM(" + SIGNED_AMOUNT + ")"
+                    + " FROM transaction t WHERE t.account_id = a.account_id AND t.status = 'COMPLETED' AND t.date >= ?), 0) AS closing"
+                    + " FROM account a WHERE a.account_id BETWEEN ? AND ?) AS new"
+                    + " ON DUPLICATE KEY UPDATE balance = new.closing";
+    private static final String ACCOUNT_RANGE_SQL =
+            "SELECT MIN(account_id), MAX(account_id) FROM account";
+
+    /** account_id span written per statement by createDaily (db.snapshot.balance.chunkSize). */
+    private static final int DAILY_CHUNK_SIZE =
+            Math.max(1, DBConnection.getIntProperty("db.snapshot.balance.chunkSize", 1000));
+    private static final String ON_OR_BEFORE_SQL =
+            "SELECT " + COLUMNS + " FROM balance_snapshot WHERE account_id = ? AND snapshot_date <= ?"
+                    + " ORDER BY snapshot_date DESC LIMIT 1";
+    private static final String AFTER_SQL =
+            "SELECT " + COLUMNS + " FROM balance_snapshot WHERE account_id = ? AND snapshot_date > ?"
+                    + " ORDER BY snapshot_date LIMIT 1";
+    private static final String LIVE_BALANCE_SQL =
+            "SELECT balance FROM account WHERE account_id = ?";
+    private static final String SUM_BETWEEN_SQL =
+            "SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM transaction t"
+                    + " WHERE t.account_id = ? AND t.status = 'COMPLETED' AND t.date >= ? AND t.date < ?";
+    private static final String SUM_FROM_SQL =
+            "SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM transaction t"
+                    + " WHERE t.account_id = ? AND t.status = 'COMPLETED' AND t.date >= ?";
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Write (or overwrite) the closing-balance checkpoint of every account for the given day.
+     *
+     * Runs under READ COMMITTED, one autocommitted statement per DAILY_CHUNK_SIZE account ids:
+     * at that level InnoDB reads the INSERT ... SELECT source rows as a consistent read instead of
+     * taking shared next-key locks on account and transaction, so transfers are not blocked while
+     * the whole bank is checkpointed. Each account's balance and postings still come from one
+     * statement's read view.
+     * @return number of rows affected
+     */
+    public int createDaily(LocalDate day) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            int isolation = conn.getTransactionIsolation();
+            try {
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                long min;
+                long max;
+                try (PreparedStatement ps = StatementCache.prepare(conn, ACCOUNT_RANGE_SQL);
+                     ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return 0;
+                    min = rs.getInt(1);
+                    if (rs.wasNull()) return 0;
+                    max = rs.getInt(2);
+                }
+
+                int rows = 0;
+                try (PreparedStatement ps = StatementCache.prepare(conn, CREATE_DAILY_SQL)) {
+                    ps.setDate(1, Date.valueOf(day));
+                    ps.setTimestamp(2, Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+                    for (long from = min; from <= max; from += DAILY_CHUNK_SIZE) {
+                        ps.setInt(3, (int) from);
+                        ps.setInt(4, (int) Math.min(max, from + DAILY_CHUNK_SIZE - 1));
+                        rows += ps.executeUpdate();
+                    }
+                }
+                return rows;
+            } finally {
+                // pooled connection: hand it back at the isolation it came with
+                conn.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    /**
+     * Closing balance of the account at the end of the given day, or null if the account does not exist.
+     * Reads at most one checkpoint plus the transactions between it and the day.
+     */
+    public BigDecimal balanceAsOf(int accountId, LocalDate day) throws SQLException {
+        LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                // one snapshot for the checkpoint and the replayed rows
+                conn.setAutoCommit(false);
+                conn.setReadOnly(true);
+
+                BalanceSnapshot before = findOne(conn, ON_OR_BEFORE_SQL, accountId, day);
+                BalanceSnapshot after = findOne(conn, AFTER_SQL, accountId, day);
+                BigDecimal balance;
+                if (before != null && (after == null || !isCloser(after, day, before))) {
+                    // forward: checkpoint + postings after its day, up to the end of the requested day
+                    LocalDateTime from = before.getSnapshotDate().plusDays(1).atStartOfDay();
+                    balance = before.getBalance().add(sumBetween(conn, accountId, from, dayEnd));
+                } else if (after != null) {
+                    // backward: later checkpoint - postings after the requested day, up to the end of its day
+                    LocalDateTime to = after.getSnapshotDate().plusDays(1).atStartOfDay();
+                    balance = after.getBalance().subtract(sumBetween(conn, accountId, dayEnd, to));
+                } else {
+                    // no checkpoints yet: live balance - everything posted after the requested day
+                    balance = liveBalanceBefore(conn, accountId, dayEnd);
+                }
+
+                conn.commit();
+                return balance;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Backfill yesterday's checkpoint now, then write one every day shortly after midnight on a
+     * daemon timer (db.snapshot.balance.delayMinutes after midnight, default 5; negative disables).
+     */
+    public static synchronized void scheduleDaily() {
+        long delayMinutes = DBConnection.getLongProperty("db.snapshot.balance.delayMinutes", 5L);
+        if (scheduler != null || delayMinutes < 0) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "balance-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(BalanceSnapshotDAO::createYesterdayQuietly);
+        LocalDateTime firstRun = LocalDate.now().plusDays(1).atStartOfDay().plusMinutes(delayMinutes);
+        long initialDelay = Duration.between(LocalDateTime.now(), firstRun).toMillis();
+        scheduler.scheduleAtFixedRate(BalanceSnapshotDAO::createYesterdayQuietly,
+                initialDelay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    private static void createYesterdayQuietly() {
+        try {
+            new BalanceSnapshotDAO().createDaily(LocalDate.now().minusDays(1));
+        } catch (SQLException e) {
+            // the next run overwrites; as-of queries fall back to a farther checkpoint meanwhile
+            System.err.println("Balance snapshot failed: " + e.getMessage());
+        }
+    }
+
+    private static boolean isCloser(BalanceSnapshot after, LocalDate day, BalanceSnapshot before) {
+        return after.getSnapshotDate().toEpochDay() - day.toEpochDay()
+                < day.toEpochDay() - before.getSnapshotDate().toEpochDay();
+    }
+
+    private static BalanceSnapshot findOne(Connection conn, String sql, int accountId, LocalDate day) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, sql)) {
+            ps.setInt(1, accountId);
+            ps.setDate(2, Date.valueOf(day));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return mapRow(rs);
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal sumBetween(Connection conn, int accountId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, SUM_BETWEEN_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBigDecimal(1);
+            }
+        }
+    }
+
+    private static BigDecimal liveBalanceBefore(Connection conn, int accountId, LocalDateTime end) throws SQLException {
+        BigDecimal live;
+        try (PreparedStatement ps = StatementCache.prepare(conn, LIVE_BALANCE_SQL)) {
+            ps.setInt(1, accountId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                live = rs.getBigDecimal(1);
+            }
+        }
+        try (PreparedStatement ps = StatementCache.prepare(conn, SUM_FROM_SQL)) {
+            ps.setInt(1, accountId);
+            ps.setTimestamp(2, Timestamp.valueOf(end));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return live.subtract(rs.getBigDecimal(1));
+            }
+        }
+    }
+
+    private static BalanceSnapshot mapRow(ResultSet rs) throws SQLException {
+        BalanceSnapshot s = new BalanceSnapshot();
+        s.setAccountID(rs.getInt(1));
+        s.setSnapshotDate(rs.getDate(2).toLocalDate());
+        s.setBalance(rs.getBigDecimal(3));
+        return s;
+    }
+}
@@ -0,0 +1,88 @@
+package com.financeportal.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Shared JDBC batch-insert loop for the DAOs.
+ *
+ * Rows are sent with addBatch/executeBatch in chunks of chunkSize, and the generated
+ * keys of each chunk are assigned back to the items in insertion order.
+ * MySQL only turns a batch into a multi-row INSERT when the URL has rewriteBatchedStatements=true.
+ */
+final class BatchInsert {
+
+    /** Default rows per executeBatch round trip (db.batch.chunkSize in database.properties). */
+    static final int DEFAULT_CHUNK_SIZE = DBConnection.getIntProperty("db.batch.chunkSize", 500);
+
+    /** Binds one item's values to the INSERT statement. */
+    interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /** Stores the generated id on the item. */
+    interface KeySetter<T> {
+        void setKey(T item, int id);
+    }
+
+    private BatchInsert() {}
+
+    /**
+     * Insert all items on the given connection (caller controls commit).
+     * @return number of rows inserted
+     */
+    static <T> int insert(Connection conn, String sql, List<T> items, int chunkSize,
+                          Binder<T> binder, KeySetter<T> keys) throws SQLException {
+        if (items == null || items.isEmpty()) return 0;
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be >= 1");
+
+        int inserted = 0;
+        try (PreparedStatement ps = StatementCache.prepare(conn, sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+                for (T item : chunk) {
+                    binder.bind(ps, item);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int c : counts) {
+                    // SUCCESS_NO_INFO (-2) is returned by drivers that rewrite the batch
+                    inserted += c == Statement.SUCCESS_NO_INFO ? 1 : c;
+                }
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (rs.next() && i < chunk.size()) {
+                        keys.setKey(chunk.get(i++), rs.getInt(1));
+                    }
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Insert all items on a new connection in a single transaction (all or nothing).
+     * @return number of rows inserted
+     */
+    static <T> int insertInTransaction(String sql, List<T> items, int chunkSize,
+                                       Binder<T> binder, KeySetter<T> keys) throws SQLException {
+        if (items == null || items.isEmpty()) return 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+                int n = insert(conn, sql, items, chunkSize, binder, keys);
+                conn.commit();
+                return n;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -3,18 +3,38 @@ package com.financeportal.dao;
 import com.financeportal.model.Branch;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DAO for branch table.
  */
 public class BranchDAO {
 
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS =
+            "branch_id, name, address, capacity, manager, contact";
+    private static final String CREATE_SQL =
+            "INSERT INTO branch (name, address, capacity, manager, contact) VALUES (?, ?, ?, ?, ?)";
+    private static final String FIND_BY_ID_SQL =
+            "SELECT " + COLUMNS + " FROM branch WHERE branch_id = ?";
+    private static final String LIST_ALL_SQL =
+            "SELECT " + COLUMNS + " FROM branch ORDER BY name";
+    private static final String UPDATE_SQL =
+            "UPDATE branch SET name = ?, address = ?, capacity = ?, manager = ?, contact = ? WHERE branch_id = ?";
+
+    // Branch reference data: readers use the current snapshot, writers and the timer swap in a new one
+    private static final AtomicReference<BranchSnapshot> SNAPSHOT = new AtomicReference<>(BranchSnapshot.EMPTY);
+    private static ScheduledExecutorService refresher;
+
     public int create(Branch branch) throws SQLException {
-        String sql = "INSERT INTO branch (name, address, capacity, manager, contact) VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setString(1, branch.getName());
             ps.setString(2, branch.getAddress());
@@ -27,6 +47,7 @@ public class BranchDAO {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     branch.setBranchID(id);
+                    refreshSnapshotQuietly();
                     return id;
                 }
             }
@@ -35,9 +56,8 @@ public class BranchDAO {
     }
 
     public Branch findById(int branchId) throws SQLException {
-        String sql = "SELECT * FROM branch WHERE branch_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_ID_SQL)) {
             ps.setInt(1, branchId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -47,10 +67,9 @@ public class BranchDAO {
     }
 
     public List<Branch> listAll() throws SQLException {
-        String sql = "SELECT * FROM branch ORDER BY name";
         List<Branch> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_ALL_SQL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) list.add(mapRow(rs));
         }
@@ -58,27 +77,73 @@ public class BranchDAO {
     }
 
     public boolean update(Branch branch) throws SQLException {
-        String sql = "UPDATE branch SET name = ?, address = ?, capacity = ?, manager = ?, contact = ? WHERE branch_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, UPDATE_SQL)) {
             ps.setString(1, branch.getName());
             ps.setString(2, branch.getAddress());
             ps.setInt(3, branch.getCapacity());
             ps.setString(4, branch.getManager());
             ps.setString(5, branch.getContact());
             ps.setInt(6, branch.getBranchID());
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            if (updated) refreshSnapshotQuietly();
+            return updated;
+        }
+    }
+
+    /**
+     * Current branch snapshot. Only the very first call (if preloadSnapshot was never run) reads the database.
+     */
+    public BranchSnapshot snapshot() throws SQLException {
+        BranchSnapshot s = SNAPSHOT.get();
+        return s.isLoaded() ? s : refreshSnapshot();
+    }
+
+    /**
+     * Reload the branch table and atomically swap in the new snapshot.
+     * Refreshes are serialized so a slow reload that started before a write
+     * cannot publish its older rows over the snapshot taken after it.
+     */
+    public static synchronized BranchSnapshot refreshSnapshot() throws SQLException {
+        BranchSnapshot s = new BranchSnapshot(new BranchDAO().listAll(), LocalDateTime.now());
+        SNAPSHOT.set(s);
+        return s;
+    }
+
+    /**
+     * Load the snapshot at startup and keep it fresh on a daemon timer
+     * (db.cache.branch.refreshMs, default 10 minutes; 0 disables the timer).
+     */
+    public static synchronized void preloadSnapshot() throws SQLException {
+        refreshSnapshot();
+        long period = DBConnection.getLongProperty("db.cache.branch.refreshMs", 600_000L);
+        if (refresher == null && period > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "branch-snapshot-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refresher.scheduleWithFixedDelay(BranchDAO::refreshSnapshotQuietly, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void refreshSnapshotQuietly() {
+        try {
+            refreshSnapshot();
+        } catch (SQLException e) {
+            // keep serving the previous snapshot
+            System.err.println("Branch snapshot refresh failed: " + e.getMessage());
         }
     }
 
-    private Branch mapRow(ResultSet rs) throws SQLException {
+    private static Branch mapRow(ResultSet rs) throws SQLException {
         Branch b = new Branch();
-        b.setBranchID(rs.getInt("branch_id"));
-        b.setName(rs.getString("name"));
-        b.setAddress(rs.getString("address"));
-        b.setCapacity(rs.getInt("capacity"));
-        b.setManager(rs.getString("manager"));
-        b.setContact(rs.getString("contact"));
+        b.setBranchID(rs.getInt(1));
+        b.setName(rs.getString(2));
+        b.setAddress(rs.getString(3));
+        b.setCapacity(rs.getInt(4));
+        b.setManager(rs.getString(5));
+        b.setContact(rs.getString(6));
         return b;
     }
 }
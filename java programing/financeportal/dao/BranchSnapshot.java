@@ -0,0 +1,76 @@
+package com.financeportal.dao;
+
+import com.financeportal.model.Branch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of the branch table.
+ *
+ * Built once per refresh and swapped atomically by BranchDAO, so readers never lock
+ * and never touch the database. The Branch objects are private copies shared by all
+ * readers - treat them as read-only.
+ */
+public final class BranchSnapshot {
+
+    static final BranchSnapshot EMPTY = new BranchSnapshot(Collections.emptyList(), null);
+
+    private final List<Branch> byName;
+    private final Map<Integer, Branch> byId;
+    private final LocalDateTime loadedAt;
+
+    /**
+     * @param nameOrdered branches already sorted by name (as returned by BranchDAO.listAll)
+     */
+    BranchSnapshot(List<Branch> nameOrdered, LocalDateTime loadedAt) {
+        List<Branch> list = new ArrayList<>(nameOrdered.size());
+        Map<Integer, Branch> map = new HashMap<>(nameOrdered.size() * 2);
+        for (Branch b : nameOrdered) {
+            Branch c = copy(b);
+            list.add(c);
+            map.put(c.getBranchID(), c);
+        }
+        this.byName = Collections.unmodifiableList(list);
+        this.byId = Collections.unmodifiableMap(map);
+        this.loadedAt = loadedAt;
+    }
+
+    /** Branch by id, or null. */
+    public Branch findById(int branchId) {
+        return byId.get(branchId);
+    }
+
+    /** All branches ordered by name. */
+    public List<Branch> list() {
+        return byName;
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    /** When this snapshot was read from the database (null for the empty placeholder). */
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    boolean isLoaded() {
+        return loadedAt != null;
+    }
+
+    private static Branch copy(Branch src) {
+        Branch b = new Branch();
+        b.setBranchID(src.getBranchID());
+        b.setName(src.getName());
+        b.setAddress(src.getAddress());
+        b.setCapacity(src.getCapacity());
+        b.setManager(src.getManager());
+        b.setContact(src.getContact());
+        return b;
+    }
+}
@@ -12,16 +12,23 @@ import java.util.List;
  */
 public class CardDAO {
 
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS =
+            "card_id, card_number, account_holder_id, expiry, status, created_at";
+    private static final String CREATE_SQL =
+            "INSERT INTO card (card_number, account_holder_id, expiry, status, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String FIND_BY_ID_SQL =
+            "SELECT " + COLUMNS + " FROM card WHERE card_id = ?";
+    private static final String LIST_BY_HOLDER_SQL =
+            "SELECT " + COLUMNS + " FROM card WHERE account_holder_id = ? ORDER BY created_at DESC";
+    private static final String BLOCK_CARD_SQL =
+            "UPDATE card SET status = 'BLOCKED' WHERE card_id = ?";
+
     public int create(Card card) throws SQLException {
-        String sql = "INSERT INTO card (card_number, account_holder_id, expiry, status, created_at) VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            ps.setString(1, card.getCardNumber());
-            ps.setInt(2, card.getAccountHolderID());
-            ps.setTimestamp(3, card.getExpiry() == null ? null : Timestamp.valueOf(card.getExpiry()));
-            ps.setString(4, card.getStatus() == null ? "ACTIVE" : card.getStatus());
-            ps.setTimestamp(5, Timestamp.valueOf(card.getIssuedAt() == null ? LocalDateTime.now() : card.getIssuedAt()));
+            bindInsert(ps, card);
 
             ps.executeUpdate();
             try (ResultSet rs = ps.getGeneratedKeys()) {
@@ -35,10 +42,33 @@ public class CardDAO {
         return -1;
     }
 
+    /**
+     * Insert many cards on a new connection, all or nothing (bulk onboarding).
+     * Generated ids are set back on each Card.
+     * @return number of rows inserted
+     */
+    public int createBatch(List<Card> cards) throws SQLException {
+        return BatchInsert.insertInTransaction(CREATE_SQL, cards, BatchInsert.DEFAULT_CHUNK_SIZE,
+                CardDAO::bindInsert, Card::setCardID);
+    }
+
+    /**
+     * Insert many cards with JDBC batching on the given connection (caller controls commit).
+     */
+    public int createBatch(List<Card> cards, Connection conn) throws SQLException {
+        return createBatch(cards, conn, BatchInsert.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Same as createBatch(cards, conn) with an explicit number of rows per executeBatch.
+     */
+    public int createBatch(List<Card> cards, Connection conn, int chunkSize) throws SQLException {
+        return BatchInsert.insert(conn, CREATE_SQL, cards, chunkSize, CardDAO::bindInsert, Card::setCardID);
+    }
+
     public Card findById(int cardId) throws SQLException {
-        String sql = "SELECT * FROM card WHERE card_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_ID_SQL)) {
             ps.setInt(1, cardId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -48,10 +78,9 @@ public class CardDAO {
     }
 
     public List<Card> listByHolder(int holderId) throws SQLException {
-        String sql = "SELECT * FROM card WHERE account_holder_id = ? ORDER BY created_at DESC";
         List<Card> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_BY_HOLDER_SQL)) {
             ps.setInt(1, holderId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) list.add(mapRow(rs));
@@ -61,23 +90,30 @@ public class CardDAO {
     }
 
     public boolean blockCard(int cardId) throws SQLException {
-        String sql = "UPDATE card SET status = 'BLOCKED' WHERE card_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, BLOCK_CARD_SQL)) {
             ps.setInt(1, cardId);
             return ps.executeUpdate() == 1;
         }
     }
 
-    private Card mapRow(ResultSet rs) throws SQLException {
+    private static void bindInsert(PreparedStatement ps, Card card) throws SQLException {
+        ps.setString(1, card.getCardNumber());
+        ps.setInt(2, card.getAccountHolderID());
+        ps.setTimestamp(3, card.getExpiry() == null ? null : Timestamp.valueOf(card.getExpiry()));
+        ps.setString(4, card.getStatus() == null ? "ACTIVE" : card.getStatus());
+        ps.setTimestamp(5, Timestamp.valueOf(card.getIssuedAt() == null ? LocalDateTime.now() : card.getIssuedAt()));
+    }
+
+    private static Card mapRow(ResultSet rs) throws SQLException {
         Card c = new Card();
-        c.setCardID(rs.getInt("card_id"));
-        c.setCardNumber(rs.getString("card_number"));
-        c.setAccountHolderID(rs.getInt("account_holder_id"));
-        Timestamp expiry = rs.getTimestamp("expiry");
+        c.setCardID(rs.getInt(1));
+        c.setCardNumber(rs.getString(2));
+        c.setAccountHolderID(rs.getInt(3));
+        Timestamp expiry = rs.getTimestamp(4);
         if (expiry != null) c.setExpiry(expiry.toLocalDateTime());
-        c.setStatus(rs.getString("status"));
-        Timestamp issued = rs.getTimestamp("created_at");
+        c.setStatus(rs.getString(5));
+        Timestamp issued = rs.getTimestamp(6);
         if (issued != null) c.setIssuedAt(issued.toLocalDateTime());
         return c;
     }
@@ -0,0 +1,269 @@
+package com.financeportal.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded JDBC connection pool used by DBConnection.
+ *
+ * - At most maxSize physical connections are handed out at any time (a Semaphore guards borrowing).
+ * - Idle connections are validated with Connection.isValid(...) before being handed out again.
+ * - A daemon evictor closes connections that stayed idle longer than idleTimeoutMs, down to minSize,
+ *   and tops the pool back up to minSize open connections after a burst or a database restart.
+ * - Borrowers wait up to borrowTimeoutMs for a free connection, then get an SQLException.
+ * - Each physical connection carries its own StatementCache (statementCacheSize entries).
+ *
+ * Callers receive a proxy: calling close() on it returns the physical connection to the pool.
+ */
+final class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final int validationTimeoutSec;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    ConnectionPool(String url, String user, String password,
+                   int minSize, int maxSize, long borrowTimeoutMs, long idleTimeoutMs, int validationTimeoutSec,
+                   int statementCacheSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        if (minSize < 0 || minSize > maxSize) throw new IllegalArgumentException("minSize must be between 0 and maxSize");
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000L, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection. Caller must close it (which returns it to the pool).
+     */
+    Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a pooled connection (maxSize=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = pollIdle()) != null) {
+                if (isUsable(entry.physical)) return wrap(entry);
+                closeQuietly(entry);
+            }
+            return wrap(newEntry());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Number of idle connections currently held by the pool. */
+    synchronized int idleCount() {
+        return idle.size();
+    }
+
+    /** Number of connections currently borrowed. */
+    int activeCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    private synchronized PooledEntry pollIdle() {
+        // LIFO: the most recently used connection is the most likely to still be valid
+        return idle.pollFirst();
+    }
+
+    private boolean isUsable(Connection c) {
+        try {
+            return !c.isClosed() && c.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        try {
+            boolean reusable = !entry.physical.isClosed();
+            if (reusable) {
+                // never hand out a connection with a half-finished transaction or altered defaults
+                if (!entry.physical.getAutoCommit()) {
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+                if (entry.physical.isReadOnly()) entry.physical.setReadOnly(false);
+                entry.lastUsed = System.currentTimeMillis();
+                synchronized (this) {
+                    idle.addFirst(entry);
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void maintain() {
+        evictIdle();
+        fillToMinimum();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        Deque<PooledEntry> expired = new ArrayDeque<>();
+        synchronized (this) {
+            // oldest entries sit at the tail
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minSize) {
+                PooledEntry e = it.next();
+                if (e.lastUsed >= cutoff) break;
+                it.remove();
+                expired.add(e);
+            }
+        }
+        for (PooledEntry e : expired) closeQuietly(e);
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            synchronized (this) {
+                if (idle.size() + activeCount() >= minSize) return;
+            }
+            try {
+                PooledEntry e = newEntry();
+                synchronized (this) {
+                    idle.addLast(e);
+                }
+            } catch (SQLException e) {
+                // database unreachable; borrowers will surface the error
+                return;
+            }
+        }
+    }
+
+    private PooledEntry newEntry() throws SQLException {
+        return new PooledEntry(DriverManager.getConnection(url, user, password), statementCacheSize);
+    }
+
+    /**
+     * Statement cache of a pooled connection, or null if conn did not come from a pool.
+     */
+    static StatementCache statementCacheOf(Connection conn) {
+        if (conn == null || !Proxy.isProxyClass(conn.getClass())) return null;
+        InvocationHandler h = Proxy.getInvocationHandler(conn);
+        return h instanceof PooledConnectionHandler ? ((PooledConnectionHandler) h).entry().statements : null;
+    }
+
+    private void closeQuietly(PooledEntry entry) {
+        entry.statements.clear();
+        try {
+            entry.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private Connection wrap(PooledEntry entry) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(entry));
+    }
+
+    /**
+     * Physical connection plus pool bookkeeping.
+     */
+    static final class PooledEntry {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledEntry(Connection physical, int statementCacheSize) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize);
+        }
+    }
+
+    /**
+     * Routes every call to the physical connection except close()/isClosed(),
+     * which return the connection to the pool exactly once.
+     */
+    final class PooledConnectionHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean closed;
+
+        PooledConnectionHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        PooledEntry entry() {
+            return entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    if (closed) throw new SQLException("Connection already returned to the pool");
+                    try {
+                        return method.invoke(entry.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -2,28 +2,54 @@ package com.financeportal.dao;
 
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 /**
  * DBConnection helper.
  * Loads /database.properties from classpath if present; otherwise uses defaults.
+ * Any db.*, service.* or ledger.* key can also be given as a -D system property, which wins
+ * over the file (e.g. -Ddb.url=... to point a load test at a local stand-in database).
+ * Connections are served from a bounded pool (see ConnectionPool).
  *
  * Expected keys (database.properties):
- *   db.url=jdbc:mysql://localhost:3306/finance_portal?serverTimezone=UTC
+ *   db.url=jdbc:mysql://localhost:3306/finance_portal?serverTimezone=UTC&useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true
  *   db.user=root
  *   db.password=
+ *
+ * Optional pool keys (defaults shown):
+ *   db.pool.minSize=2
+ *   db.pool.maxSize=10
+ *   db.pool.borrowTimeoutMs=5000
+ *   db.pool.idleTimeoutMs=300000
+ *   db.pool.validationTimeoutSec=2
+ *   db.pool.statementCacheSize=32   (per connection, 0 disables StatementCache)
+ *   db.batch.chunkSize=500          (rows per executeBatch in the createBatch APIs)
+ *   db.stream.fetchSize=1000        (rows per round trip in the stream* APIs)
+ *   db.cache.holder.maxSize=1000    (AccountHolderDAO lookup cache)
+ *   db.cache.holder.ttlMs=300000
+ *   db.cache.branch.refreshMs=600000 (BranchDAO snapshot timer, 0 disables)
+ *   db.snapshot.balance.delayMinutes=5 (daily balance_snapshot run after midnight, negative disables)
+ *   ledger.*                        (LedgerEngine journal and projection, see that class)
  */
 public final class DBConnection {
     private static final String RESOURCE = "/database.properties";
-    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/finance_portal?serverTimezone=UTC";
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/finance_portal?serverTimezone=UTC&useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true";
     private static final String DEFAULT_USER = "root";
     private static final String DEFAULT_PASSWORD = "";
 
+    private static final int DEFAULT_POOL_MIN = 2;
+    private static final int DEFAULT_POOL_MAX = 10;
+    private static final long DEFAULT_BORROW_TIMEOUT_MS = 5_000L;
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 300_000L;
+    private static final int DEFAULT_VALIDATION_TIMEOUT_SEC = 2;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
     private static final String url;
     private static final String user;
     private static final String password;
+    private static final Properties props = new Properties();
+    private static final ConnectionPool pool;
 
     static {
         String u = DEFAULT_URL;
@@ -31,15 +57,19 @@ public final class DBConnection {
         String pwd = DEFAULT_PASSWORD;
         try (InputStream in = DBConnection.class.getResourceAsStream(RESOURCE)) {
             if (in != null) {
-                Properties p = new Properties();
-                p.load(in);
-                u = p.getProperty("db.url", DEFAULT_URL);
-                usr = p.getProperty("db.user", DEFAULT_USER);
-                pwd = p.getProperty("db.password", DEFAULT_PASSWORD);
+                props.load(in);
             }
         } catch (Exception e) {
             System.err.println("Could not read " + RESOURCE + " - using defaults. " + e.getMessage());
         }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("db.") || key.startsWith("service.") || key.startsWith("ledger.")) {
+                props.setProperty(key, System.getProperty(key));
+            }
+        }
+        u = props.getProperty("db.url", DEFAULT_URL);
+        usr = props.getProperty("db.user", DEFAULT_USER);
+        pwd = props.getProperty("db.password", DEFAULT_PASSWORD);
         url = u;
         user = usr;
         password = pwd;
@@ -49,14 +79,79 @@ public final class DBConnection {
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL JDBC Driver not found on classpath: " + e.getMessage());
         }
+
+        pool = new ConnectionPool(url, user, password,
+                getIntProperty("db.pool.minSize", DEFAULT_POOL_MIN),
+                getIntProperty("db.pool.maxSize", DEFAULT_POOL_MAX),
+                getLongProperty("db.pool.borrowTimeoutMs", DEFAULT_BORROW_TIMEOUT_MS),
+                getLongProperty("db.pool.idleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS),
+                getIntProperty("db.pool.validationTimeoutSec", DEFAULT_VALIDATION_TIMEOUT_SEC),
+                getIntProperty("db.pool.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE));
     }
 
     private DBConnection() {}
 
     /**
-     * Get a new JDBC connection. Caller must close it.
+     * Get a JDBC connection from the pool. Caller must close it, which returns it to the pool.
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, user, password);
+        return pool.borrow();
+    }
+
+    /**
+     * Maximum number of connections the pool will hand out concurrently.
+     */
+    public static int getMaxPoolSize() {
+        return pool.maxSize();
+    }
+
+    /**
+     * Number of pooled connections currently borrowed.
+     */
+    public static int getActiveConnections() {
+        return pool.activeCount();
+    }
+
+    /**
+     * Number of open connections waiting in the pool.
+     */
+    public static int getIdleConnections() {
+        return pool.idleCount();
+    }
+
+    /**
+     * Read a string setting from database.properties (or the default if missing).
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String v = props.getProperty(key);
+        return v == null ? defaultValue : v.trim();
+    }
+
+    /**
+     * Read an integer setting from database.properties (or the default if missing/invalid).
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String v = props.getProperty(key);
+        if (v == null) return defaultValue;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + v + " - using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Read a long setting from database.properties (or the default if missing/invalid).
+     */
+    public static long getLongProperty(String key, long defaultValue) {
+        String v = props.getProperty(key);
+        if (v == null) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + v + " - using " + defaultValue);
+            return defaultValue;
+        }
     }
 }
@@ -0,0 +1,155 @@
+package com.financeportal.dao;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache for DAO lookups.
+ *
+ * - LRU eviction once maxSize entries are held, plus a time-to-live per entry.
+ * - Thread-safe; the loader runs outside the lock so a slow query never blocks other readers.
+ * - invalidate()/invalidateAll() bump a generation counter, so a load that raced with a write
+ *   is returned to its caller but not stored.
+ * - Null results are not cached.
+ */
+public final class EntityCache<K, V> {
+
+    /** Loads a value from the database on a cache miss. */
+    interface Loader<K, V> {
+        V load(K key) throws SQLException;
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    EntityCache(int maxSize, long ttlMillis) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Return the cached value or load (and cache) it.
+     */
+    V get(K key, Loader<K, V> loader) throws SQLException {
+        long gen;
+        synchronized (this) {
+            V v = lookup(key);
+            if (v != null) return v;
+            gen = generation;
+        }
+        V loaded = loader.load(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (gen == generation) store(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Cached value or null (counts as a hit/miss).
+     */
+    synchronized V getIfPresent(K key) {
+        return lookup(key);
+    }
+
+    synchronized void put(K key, V value) {
+        if (value != null) store(key, value);
+    }
+
+    /**
+     * Current invalidation generation; pair with putIfGeneration for loads done outside get().
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Store the value only if nothing was invalidated since 'gen' was read.
+     */
+    synchronized void putIfGeneration(K key, V value, long gen) {
+        if (value != null && gen == generation) store(key, value);
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        map.remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Entries dropped because the cache was full. */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /** Entries dropped because their TTL ran out. */
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private V lookup(K key) {
+        Entry<V> e = map.get(key);
+        if (e != null && System.nanoTime() - e.expiresAt >= 0) {
+            map.remove(key);
+            expirations.incrementAndGet();
+            e = null;
+        }
+        if (e == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return e.value;
+    }
+
+    private void store(K key, V value) {
+        map.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (map.size() > maxSize) {
+            Map.Entry<K, Entry<V>> eldest = map.entrySet().iterator().next();
+            map.remove(eldest.getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.financeportal.dao;
+
+import java.sql.*;
+
+/**
+ * DAO for the ledger engine's projection checkpoint.
+ *
+ * Expected table (one row):
+ *   CREATE TABLE ledger_projection (id TINYINT PRIMARY KEY, last_seq BIGINT NOT NULL);
+ *   INSERT INTO ledger_projection VALUES (1, 0);
+ *
+ * last_seq is the journal sequence number up to which entries have been projected into the
+ * account/transaction tables. It is written in the same database transaction as the projected
+ * rows, so account balances and last_seq always agree.
+ */
+public class LedgerDAO {
+
+    private static final String LAST_SEQ_SQL =
+            "SELECT last_seq FROM ledger_projection WHERE id = 1";
+    private static final String UPDATE_LAST_SEQ_SQL =
+            "UPDATE ledger_projection SET last_seq = ? WHERE id = 1";
+    private static final String BALANCES_SQL =
+            "SELECT account_id, balance FROM account";
+
+    /** Receives one account balance in cents. */
+    public interface BalanceSink {
+        void accept(int accountId, long balanceCents);
+    }
+
+    /**
+     * Read every account balance plus the projection checkpoint from one consistent snapshot.
+     * @return last projected journal sequence number
+     */
+    public long loadSnapshot(BalanceSink sink) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                long lastSeq = 0;
+                try (PreparedStatement ps = conn.prepareStatement(LAST_SEQ_SQL);
+                     ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) lastSeq = rs.getLong(1);
+                }
+                try (PreparedStatement ps = conn.prepareStatement(BALANCES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(ResultSetStream.DEFAULT_FETCH_SIZE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) sink.accept(rs.getInt(1), rs.getBigDecimal(2).movePointRight(2).longValueExact());
+                    }
+                }
+                conn.commit();
+                return lastSeq;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Advance the projection checkpoint on the projecting transaction's connection.
+     */
+    public boolean updateLastSeq(long lastSeq, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, UPDATE_LAST_SEQ_SQL)) {
+            ps.setLong(1, lastSeq);
+            return ps.executeUpdate() == 1;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.financeportal.dao;
+
+import com.financeportal.model.Loan;
+import com.financeportal.model.LoanAccrual;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * DAO for the nightly interest accrual: postings plus one checkpoint row per holder-id partition.
+ *
+ * Expected tables:
+ *   CREATE TABLE loan_accrual (
+ *     loan_id INT NOT NULL, accrual_date DATE NOT NULL, amount DECIMAL(15,4) NOT NULL,
+ *     PRIMARY KEY (loan_id, accrual_date));
+ *   CREATE TABLE accrual_checkpoint (
+ *     accrual_date DATE NOT NULL, partition_no INT NOT NULL, holder_from INT NOT NULL, holder_to INT NOT NULL,
+ *     loans INT NOT NULL, total_amount DECIMAL(18,4) NOT NULL, completed_at DATETIME NOT NULL,
+ *     PRIMARY KEY (accrual_date, partition_no));
+ *
+ * A partition's postings and its checkpoint are written in one transaction, so after a crash
+ * a rerun skips exactly the holder ranges that committed.
+ */
+public class LoanAccrualDAO {
+
+    // lightweight projection for accrual, read by mapAccrualRow
+    // principal is the outstanding principal where it has been materialized
+    private static final String ACCRUAL_COLUMNS =
+            "loan_id, account_holder_id, COALESCE(outstanding_principal, principal), interest_rate";
+    private static final String HOLDER_RANGE_SQL =
+            "SELECT MIN(account_holder_id), MAX(account_holder_id) FROM loan WHERE status = 'DISBURSED'";
+    private static final String STREAM_PARTITION_SQL =
+            "SELECT " + ACCRUAL_COLUMNS + " FROM loan"
+                    + " WHERE status = 'DISBURSED' AND account_holder_id >= ? AND account_holder_id < ?";
+    private static final String COMPLETED_SQL =
+            "SELECT holder_from, holder_to FROM accrual_checkpoint WHERE accrual_date = ?";
+    private static final String INSERT_ACCRUAL_SQL =
+            "INSERT INTO loan_accrual (loan_id, accrual_date, amount) VALUES (?, ?, ?)";
+    private static final String INSERT_CHECKPOINT_SQL =
+            "INSERT INTO accrual_checkpoint (accrual_date, partition_no, holder_from, holder_to, loans, total_amount, completed_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * {min, max} account_holder_id over disbursed loans, or null if there are none.
+     */
+    public int[] holderIdRange() throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = StatementCache.prepare(conn, HOLDER_RANGE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) return null;
+            int min = rs.getInt(1);
+            if (rs.wasNull()) return null;
+            return new int[]{min, rs.getInt(2)};
+        }
+    }
+
+    /**
+     * Holder ranges already committed for the given accrual date, as holder_from -> holder_to.
+     */
+    public Map<Integer, Integer> completedRanges(LocalDate accrualDate) throws SQLException {
+        Map<Integer, Integer> done = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = StatementCache.prepare(conn, COMPLETED_SQL)) {
+            ps.setDate(1, Date.valueOf(accrualDate));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) done.put(rs.getInt(1), rs.getInt(2));
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Stream the disbursed loans of holders in [holderFrom, holderTo). Only loanID,
+     * accountHolderID, principal (the outstanding principal) and interestRate are set. Close the stream to release its connection.
+     */
+    public Stream<Loan> streamPartition(int holderFrom, int holderTo) throws SQLException {
+        return ResultSetStream.open(STREAM_PARTITION_SQL, ResultSetStream.DEFAULT_FETCH_SIZE, ps -> {
+            ps.setInt(1, holderFrom);
+            ps.setInt(2, holderTo);
+        }, LoanAccrualDAO::mapAccrualRow);
+    }
+
+    /**
+     * Write a partition's postings and its checkpoint in one transaction.
+     * Fails (and writes nothing) if the partition was already committed for that date.
+     */
+    public void writePartition(LocalDate accrualDate, int partitionNo, int holderFrom, int holderTo,
+                               List<LoanAccrual> accruals, BigDecimal total) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+
+                BatchInsert.insert(conn, INSERT_ACCRUAL_SQL, accruals, BatchInsert.DEFAULT_CHUNK_SIZE,
+                        LoanAccrualDAO::bindAccrual, (a, id) -> { }); // composite key, nothing generated
+                try (PreparedStatement ps = StatementCache.prepare(conn, INSERT_CHECKPOINT_SQL)) {
+                    ps.setDate(1, Date.valueOf(accrualDate));
+                    ps.setInt(2, partitionNo);
+                    ps.setInt(3, holderFrom);
+                    ps.setInt(4, holderTo);
+                    ps.setInt(5, accruals.size());
+                    ps.setBigDecimal(6, total);
+                    ps.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+                    ps.executeUpdate();
+                }
+
+                conn.commit();
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void bindAccrual(PreparedStatement ps, LoanAccrual a) throws SQLException {
+        ps.setInt(1, a.getLoanID());
+        ps.setDate(2, Date.valueOf(a.getAccrualDate()));
+        ps.setBigDecimal(3, a.getAmount());
+    }
+
+    private static Loan mapAccrualRow(ResultSet rs) throws SQLException {
+        Loan l = new Loan();
+        l.setLoanID(rs.getInt(1));
+        l.setAccountHolderID(rs.getInt(2));
+        l.setPrincipal(rs.getBigDecimal(3));
+        l.setInterestRate(rs.getBigDecimal(4));
+        return l;
+    }
+}
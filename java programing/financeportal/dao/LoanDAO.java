@@ -1,21 +1,68 @@
 package com.financeportal.dao;
 
 import com.financeportal.model.Loan;
+import com.financeportal.util.FixedPoint;
 
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * DAO for loan table.
+ *
+ *   ALTER TABLE loan ADD COLUMN repayment_type VARCHAR(16) NOT NULL DEFAULT 'ANNUITY';
+ *   ALTER TABLE loan ADD COLUMN outstanding_principal DECIMAL(15,2) NULL,
+ *                    ADD COLUMN outstanding_interest DECIMAL(15,2) NULL;
+ *
+ * outstanding_principal/outstanding_interest are materialized at disbursement and maintained
+ * in the same transaction as every repayment, so reading them is a primary-key lookup.
+ * Loans disbursed before the columns existed keep NULLs until their first repayment, which
+ * derives the opening balance from the LOAN_REPAYMENT debits already in the transaction table
+ * (repaidFromHistory) and stores it.
  */
 public class LoanDAO {
 
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS =
+            "loan_id, account_holder_id, principal, interest_rate, term_months, status, created_at, repayment_type,"
+                    + " outstanding_principal, outstanding_interest";
+    private static final String CREATE_SQL =
+            "INSERT INTO loan (account_holder_id, principal, interest_rate, term_months, status, created_at, repayment_type) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String FIND_BY_ID_SQL =
+            "SELECT " + COLUMNS + " FROM loan WHERE loan_id = ?";
+    private static final String LIST_BY_HOLDER_SQL =
+            "SELECT " + COLUMNS + " FROM loan WHERE account_holder_id = ? ORDER BY created_at DESC";
+    private static final String FIND_BY_ID_FOR_UPDATE_SQL =
+            FIND_BY_ID_SQL + " FOR UPDATE";
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE loan SET status = ? WHERE loan_id = ?";
+    private static final String UPDATE_OUTSTANDING_SQL =
+            "UPDATE loan SET outstanding_principal = ?, outstanding_interest = ?, status = ? WHERE loan_id = ?";
+    // s.remaining: installments of the stored schedule (written at disbursement) still due after asOf
+    private static final String PORTFOLIO_SQL =
+            "SELECT l.loan_id, l.principal, COALESCE(l.outstanding_principal, l.principal), l.interest_rate,"
+                    + " l.term_months, l.created_at, l.repayment_type, s.remaining FROM loan l"
+                    + " LEFT JOIN (SELECT loan_id, SUM(due_date > ?) AS remaining FROM loan_schedule GROUP BY loan_id) s"
+                    + " ON s.loan_id = l.loan_id WHERE l.status = 'DISBURSED'";
+    // repayments posted before outstanding amounts were materialized; the note is the only link to the loan
+    private static final String REPAID_FROM_HISTORY_SQL =
+            "SELECT COALESCE(SUM(amount), 0) FROM transaction"
+                    + " WHERE type = 'DEBIT' AND status = 'COMPLETED' AND payment_method = 'LOAN_REPAYMENT' AND notes = ?";
+    private static final String MARK_DISBURSED_SQL =
+            "UPDATE loan SET status = 'DISBURSED', outstanding_principal = ?, outstanding_interest = ?"
+                    + " WHERE loan_id = ? AND status IN ('APPLIED', 'APPROVED')";
+
     public int create(Loan loan) throws SQLException {
-        String sql = "INSERT INTO loan (account_holder_id, principal, interest_rate, term_months, status, created_at) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setInt(1, loan.getAccountHolderID());
             ps.setBigDecimal(2, loan.getPrincipal());
@@ -23,6 +70,7 @@ public class LoanDAO {
             ps.setInt(4, loan.getTermMonths());
             ps.setString(5, loan.getStatus() == null ? "APPLIED" : loan.getStatus());
             ps.setTimestamp(6, Timestamp.valueOf(loan.getCreatedAt() == null ? LocalDateTime.now() : loan.getCreatedAt()));
+            ps.setString(7, loan.getRepaymentType() == null ? "ANNUITY" : loan.getRepaymentType());
 
             ps.executeUpdate();
             try (ResultSet rs = ps.getGeneratedKeys()) {
@@ -37,9 +85,21 @@ public class LoanDAO {
     }
 
     public Loan findById(int loanId) throws SQLException {
-        String sql = "SELECT * FROM loan WHERE loan_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_ID_SQL)) {
+            ps.setInt(1, loanId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return mapRow(rs);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read and lock the loan row on the caller's transaction (SELECT ... FOR UPDATE).
+     */
+    public Loan findByIdForUpdate(int loanId, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_ID_FOR_UPDATE_SQL)) {
             ps.setInt(1, loanId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -48,11 +108,72 @@ public class LoanDAO {
         return null;
     }
 
+    /**
+     * Lock the given loan rows (SELECT ... FOR UPDATE) on the caller's transaction, in ascending id order,
+     * with chunked primary-key IN lists (see AccountDAO.lockForUpdate).
+     *
+     * @return the locked loans keyed by id; ids that do not exist are absent
+     */
+    public SortedMap<Integer, Loan> lockForUpdate(Collection<Integer> loanIds, Connection conn) throws SQLException {
+        SortedMap<Integer, Loan> locked = new TreeMap<>();
+        if (loanIds == null || loanIds.isEmpty()) return locked;
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(loanIds));
+        for (int from = 0; from < ids.size(); from += BatchInsert.DEFAULT_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + BatchInsert.DEFAULT_CHUNK_SIZE, ids.size()));
+            StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM loan WHERE loan_id IN (");
+            for (int i = 0; i < chunk.size(); i++) sql.append(i == 0 ? "?" : ", ?");
+            sql.append(") ORDER BY loan_id FOR UPDATE");
+
+            // the placeholder count varies per call, so this one bypasses StatementCache
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int i = 1;
+                for (Integer id : chunk) ps.setInt(i++, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Loan l = mapRow(rs);
+                        locked.put(l.getLoanID(), l);
+                    }
+                }
+            }
+        }
+        return locked;
+    }
+
+    /**
+     * Columnar snapshot of every disbursed loan, read with a forward-only cursor in
+     * db.stream.fetchSize chunks. Remaining terms are the installments of the stored schedule due
+     * after asOf; loans without a stored schedule fall back to whole months elapsed since created_at.
+     */
+    public LoanPortfolioSnapshot loadPortfolioSnapshot(LocalDate asOf) throws SQLException {
+        LoanPortfolioSnapshot.Builder b = new LoanPortfolioSnapshot.Builder(asOf);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(PORTFOLIO_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(ResultSetStream.DEFAULT_FETCH_SIZE);
+            ps.setDate(1, Date.valueOf(asOf));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    BigDecimal rate = rs.getBigDecimal(4);
+                    int term = rs.getInt(5);
+                    long due = rs.getLong(8);
+                    if (rs.wasNull()) {
+                        Timestamp created = rs.getTimestamp(6);
+                        due = term - (created == null ? 0 : ChronoUnit.MONTHS.between(created.toLocalDateTime().toLocalDate(), asOf));
+                    }
+                    // overdue loans that are still open have everything due now
+                    int remaining = (int) Math.max(1, Math.min(term, due));
+                    b.add(rs.getInt(1), FixedPoint.toCents(rs.getBigDecimal(2)), FixedPoint.toCents(rs.getBigDecimal(3)),
+                            rate == null ? 0.0 : rate.doubleValue(), term, remaining,
+                            LoanPortfolioSnapshot.typeCode(rs.getString(7)));
+                }
+            }
+        }
+        return b.build();
+    }
+
     public List<Loan> listByHolder(int holderId) throws SQLException {
-        String sql = "SELECT * FROM loan WHERE account_holder_id = ? ORDER BY created_at DESC";
         List<Loan> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_BY_HOLDER_SQL)) {
             ps.setInt(1, holderId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) list.add(mapRow(rs));
@@ -62,25 +183,88 @@ public class LoanDAO {
     }
 
     public boolean updateStatus(int loanId, String newStatus) throws SQLException {
-        String sql = "UPDATE loan SET status = ? WHERE loan_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, UPDATE_STATUS_SQL)) {
             ps.setString(1, newStatus);
             ps.setInt(2, loanId);
             return ps.executeUpdate() == 1;
         }
     }
 
-    private Loan mapRow(ResultSet rs) throws SQLException {
+    /**
+     * Total of the COMPLETED LOAN_REPAYMENT debits recorded for a loan.
+     */
+    public BigDecimal repaidFromHistory(int loanId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            return repaidFromHistory(loanId, conn);
+        }
+    }
+
+    /**
+     * Total of the COMPLETED LOAN_REPAYMENT debits recorded for a loan, on the caller's connection.
+     */
+    public BigDecimal repaidFromHistory(int loanId, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, REPAID_FROM_HISTORY_SQL)) {
+            ps.setString(1, "Loan repayment for loanId=" + loanId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Set the materialized outstanding amounts and status on the caller's connection.
+     */
+    public boolean updateOutstanding(int loanId, BigDecimal outstandingPrincipal, BigDecimal outstandingInterest,
+                                     String status, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, UPDATE_OUTSTANDING_SQL)) {
+            ps.setBigDecimal(1, outstandingPrincipal);
+            ps.setBigDecimal(2, outstandingInterest);
+            ps.setString(3, status);
+            ps.setInt(4, loanId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Mark many loans DISBURSED with one JDBC batch on the caller's connection, storing each loan's
+     * outstandingPrincipal/outstandingInterest. Only loans still APPLIED or APPROVED are updated.
+     *
+     * @return ids of loans that were not updated (missing or already disbursed); empty if all applied
+     */
+    public List<Integer> markDisbursedBatch(List<Loan> loans, Connection conn) throws SQLException {
+        List<Integer> failed = new ArrayList<>();
+        if (loans == null || loans.isEmpty()) return failed;
+        try (PreparedStatement ps = StatementCache.prepare(conn, MARK_DISBURSED_SQL)) {
+            for (Loan l : loans) {
+                ps.setBigDecimal(1, l.getOutstandingPrincipal());
+                ps.setBigDecimal(2, l.getOutstandingInterest());
+                ps.setInt(3, l.getLoanID());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.SUCCESS_NO_INFO)
+                    throw new SQLException("Driver did not report per-row update counts for the loan batch");
+                if (counts[i] != 1) failed.add(loans.get(i).getLoanID());
+            }
+        }
+        return failed;
+    }
+
+    private static Loan mapRow(ResultSet rs) throws SQLException {
         Loan l = new Loan();
-        l.setLoanID(rs.getInt("loan_id"));
-        l.setAccountHolderID(rs.getInt("account_holder_id"));
-        l.setPrincipal(rs.getBigDecimal("principal"));
-        l.setInterestRate(rs.getBigDecimal("interest_rate"));
-        l.setTermMonths(rs.getInt("term_months"));
-        l.setStatus(rs.getString("status"));
-        Timestamp ts = rs.getTimestamp("created_at");
+        l.setLoanID(rs.getInt(1));
+        l.setAccountHolderID(rs.getInt(2));
+        l.setPrincipal(rs.getBigDecimal(3));
+        l.setInterestRate(rs.getBigDecimal(4));
+        l.setTermMonths(rs.getInt(5));
+        l.setStatus(rs.getString(6));
+        Timestamp ts = rs.getTimestamp(7);
         if (ts != null) l.setCreatedAt(ts.toLocalDateTime());
+        l.setRepaymentType(rs.getString(8));
+        l.setOutstandingPrincipal(rs.getBigDecimal(9));
+        l.setOutstandingInterest(rs.getBigDecimal(10));
         return l;
     }
 }
@@ -0,0 +1,84 @@
+package com.financeportal.dao;
+
+import com.financeportal.model.LoanRepayment;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO for loan_repayment.
+ *
+ * Expected table:
+ *   CREATE TABLE loan_repayment (
+ *     repayment_id INT AUTO_INCREMENT PRIMARY KEY, loan_id INT NOT NULL, account_id INT NOT NULL,
+ *     transaction_id INT NOT NULL, amount DECIMAL(15,2) NOT NULL, principal_part DECIMAL(15,2) NOT NULL,
+ *     interest_part DECIMAL(15,2) NOT NULL, paid_at DATETIME NOT NULL,
+ *     INDEX idx_loan_repayment_loan (loan_id, paid_at));
+ */
+public class LoanRepaymentDAO {
+
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS =
+            "repayment_id, loan_id, account_id, transaction_id, amount, principal_part, interest_part, paid_at";
+    private static final String CREATE_SQL =
+            "INSERT INTO loan_repayment (loan_id, account_id, transaction_id, amount, principal_part, interest_part, paid_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String LIST_BY_LOAN_SQL =
+            "SELECT " + COLUMNS + " FROM loan_repayment WHERE loan_id = ? ORDER BY paid_at, repayment_id";
+
+    /**
+     * Record a repayment on the caller's connection (same transaction as the debit and the loan update).
+     * Returns generated repayment id.
+     */
+    public int create(LoanRepayment r, Connection conn) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, r.getLoanID());
+            ps.setInt(2, r.getAccountID());
+            ps.setInt(3, r.getTransactionID());
+            ps.setBigDecimal(4, r.getAmount());
+            ps.setBigDecimal(5, r.getPrincipalPart());
+            ps.setBigDecimal(6, r.getInterestPart());
+            ps.setTimestamp(7, Timestamp.valueOf(r.getPaidAt() == null ? LocalDateTime.now() : r.getPaidAt()));
+            ps.executeUpdate();
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    int id = rs.getInt(1);
+                    r.setRepaymentID(id);
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Repayment history of a loan, oldest first.
+     */
+    public List<LoanRepayment> listByLoan(int loanId) throws SQLException {
+        List<LoanRepayment> list = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_BY_LOAN_SQL)) {
+            ps.setInt(1, loanId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        }
+        return list;
+    }
+
+    private static LoanRepayment mapRow(ResultSet rs) throws SQLException {
+        LoanRepayment r = new LoanRepayment();
+        r.setRepaymentID(rs.getInt(1));
+        r.setLoanID(rs.getInt(2));
+        r.setAccountID(rs.getInt(3));
+        r.setTransactionID(rs.getInt(4));
+        r.setAmount(rs.getBigDecimal(5));
+        r.setPrincipalPart(rs.getBigDecimal(6));
+        r.setInterestPart(rs.getBigDecimal(7));
+        Timestamp ts = rs.getTimestamp(8);
+        if (ts != null) r.setPaidAt(ts.toLocalDateTime());
+        return r;
+    }
+}
@@ -0,0 +1,144 @@
+package com.financeportal.dao;
+
+import com.financeportal.model.AmortizationSchedule;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DAO for loan_schedule: one row per installment of a loan's amortization schedule.
+ *
+ * Expected table:
+ *   CREATE TABLE loan_schedule (
+ *     loan_id INT NOT NULL, installment_no INT NOT NULL, due_date DATE NOT NULL,
+ *     payment DECIMAL(15,2) NOT NULL, principal_part DECIMAL(15,2) NOT NULL,
+ *     interest_part DECIMAL(15,2) NOT NULL, balance_after DECIMAL(15,2) NOT NULL,
+ *     PRIMARY KEY (loan_id, installment_no));
+ *
+ * findByLoan serves schedules from a shared cache (db.cache.schedule.maxSize / db.cache.schedule.ttlMs).
+ * A schedule only changes when save/saveAll replace it, which happens on the caller's transaction;
+ * callers must call invalidate after that transaction commits, so a concurrent read cannot cache
+ * the schedule it replaced.
+ */
+public class LoanScheduleDAO {
+
+    // explicit projection; order must match the positional reads in load
+    private static final String COLUMNS = "installment_no, due_date, principal_part, interest_part";
+    private static final String INSERT_SQL =
+            "INSERT INTO loan_schedule (loan_id, installment_no, due_date, payment, principal_part, interest_part, balance_after)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL =
+            "DELETE FROM loan_schedule WHERE loan_id = ?";
+    private static final String FIND_BY_LOAN_SQL =
+            "SELECT " + COLUMNS + " FROM loan_schedule WHERE loan_id = ? ORDER BY installment_no";
+    private static final String TYPE_SQL =
+            "SELECT repayment_type FROM loan WHERE loan_id = ?";
+
+    private static final EntityCache<Integer, AmortizationSchedule> BY_LOAN = new EntityCache<>(
+            DBConnection.getIntProperty("db.cache.schedule.maxSize", 10_000),
+            DBConnection.getLongProperty("db.cache.schedule.ttlMs", 3_600_000L));
+
+    /**
+     * Replace the stored schedule of the loan on the caller's connection (caller controls commit,
+     * then invalidates).
+     * @return number of installment rows written
+     */
+    public int save(AmortizationSchedule s, Connection conn) throws SQLException {
+        return saveAll(Collections.singletonList(s), conn);
+    }
+
+    /**
+     * Replace the stored schedules of many loans on the caller's connection: one batched DELETE,
+     * then every installment row through one chunked batch insert. Call invalidate after the commit.
+     * @return number of installment rows written
+     */
+    public int saveAll(List<AmortizationSchedule> schedules, Connection conn) throws SQLException {
+        if (schedules == null || schedules.isEmpty()) return 0;
+        try (PreparedStatement ps = StatementCache.prepare(conn, DELETE_SQL)) {
+            for (AmortizationSchedule s : schedules) {
+                ps.setInt(1, s.getLoanID());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // {schedule index, installment no}
+        List<int[]> installments = new ArrayList<>();
+        for (int i = 0; i < schedules.size(); i++) {
+            for (int k = 1; k <= schedules.get(i).getInstallmentCount(); k++) installments.add(new int[]{i, k});
+        }
+        int n = BatchInsert.insert(conn, INSERT_SQL, installments, BatchInsert.DEFAULT_CHUNK_SIZE,
+                (ps, row) -> {
+                    AmortizationSchedule s = schedules.get(row[0]);
+                    int k = row[1];
+                    ps.setInt(1, s.getLoanID());
+                    ps.setInt(2, k);
+                    ps.setDate(3, Date.valueOf(s.getDueDate(k)));
+                    ps.setBigDecimal(4, BigDecimal.valueOf(s.getPaymentCents(k), 2));
+                    ps.setBigDecimal(5, BigDecimal.valueOf(s.getPrincipalCents(k), 2));
+                    ps.setBigDecimal(6, BigDecimal.valueOf(s.getInterestCents(k), 2));
+                    ps.setBigDecimal(7, BigDecimal.valueOf(s.getBalanceAfterCents(k), 2));
+                },
+                (row, id) -> { }); // composite key, nothing generated
+        return n;
+    }
+
+    /**
+     * Drop cached schedules of loans whose schedule a committed transaction replaced.
+     */
+    public void invalidate(Collection<Integer> loanIds) {
+        for (Integer id : loanIds) BY_LOAN.invalidate(id);
+    }
+
+    /**
+     * Stored schedule of a loan (cached), or null if none was written yet.
+     */
+    public AmortizationSchedule findByLoan(int loanId) throws SQLException {
+        return BY_LOAN.get(loanId, this::load);
+    }
+
+    /**
+     * Cache of schedules by loan id (hit ratio, evictions).
+     */
+    public static EntityCache<Integer, AmortizationSchedule> getScheduleCache() {
+        return BY_LOAN;
+    }
+
+    private AmortizationSchedule load(int loanId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            String type;
+            try (PreparedStatement ps = StatementCache.prepare(conn, TYPE_SQL)) {
+                ps.setInt(1, loanId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    type = rs.getString(1);
+                }
+            }
+            List<LocalDate> dates = new ArrayList<>();
+            List<long[]> parts = new ArrayList<>();
+            try (PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_LOAN_SQL)) {
+                ps.setInt(1, loanId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        dates.add(rs.getDate(2).toLocalDate());
+                        parts.add(new long[]{
+                                rs.getBigDecimal(3).movePointRight(2).longValueExact(),
+                                rs.getBigDecimal(4).movePointRight(2).longValueExact()});
+                    }
+                }
+            }
+            if (dates.isEmpty()) return null;
+            long[] principal = new long[dates.size()];
+            long[] interest = new long[dates.size()];
+            for (int i = 0; i < parts.size(); i++) {
+                principal[i] = parts.get(i)[0];
+                interest[i] = parts.get(i)[1];
+            }
+            return new AmortizationSchedule(loanId, type, dates.toArray(new LocalDate[0]), principal, interest);
+        }
+    }
+}
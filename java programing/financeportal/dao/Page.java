@@ -0,0 +1,26 @@
+package com.financeportal.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query.
+ *
+ * nextToken is an opaque continuation token to pass back to the same DAO method
+ * to fetch the following page; it is null when there are no more rows.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final String nextToken;
+
+    public Page(List<T> items, String nextToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextToken() { return nextToken; }
+
+    public boolean hasMore() { return nextToken != null; }
+}
@@ -0,0 +1,81 @@
+package com.financeportal.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily maps a forward-only ResultSet into a Stream for large reads (exports, nightly jobs).
+ *
+ * The query runs on its own pooled connection with a JDBC fetch size, so rows are pulled
+ * from the server in fetchSize chunks (a server-side cursor with MySQL's useCursorFetch=true)
+ * instead of being buffered in the heap. The connection stays borrowed until the stream is
+ * closed, so callers must use try-with-resources:
+ *
+ *   try (Stream&lt;AccountHolder&gt; s = dao.streamAll(500)) { s.forEach(...); }
+ */
+final class ResultSetStream {
+
+    /** Default rows per round trip (db.stream.fetchSize in database.properties). */
+    static final int DEFAULT_FETCH_SIZE = DBConnection.getIntProperty("db.stream.fetchSize", 1000);
+
+    /** Binds the query parameters. */
+    interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    private ResultSetStream() {}
+
+    static <T> Stream<T> open(String sql, int fetchSize, Binder binder, RowMapper<T> mapper) throws SQLException {
+        if (fetchSize <= 0) throw new IllegalArgumentException("fetchSize must be positive");
+        Connection conn = DBConnection.getConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (binder != null) binder.bind(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeAll(rs, ps, conn);
+            throw e;
+        }
+
+        final ResultSet cursor = rs;
+        final PreparedStatement statement = ps;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) return false;
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Failed to read streamed row: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeAll(cursor, statement, conn));
+    }
+
+    private static void closeAll(ResultSet rs, PreparedStatement ps, Connection conn) {
+        try {
+            if (rs != null) rs.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (ps != null) ps.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
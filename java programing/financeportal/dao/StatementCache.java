@@ -0,0 +1,173 @@
+package com.financeportal.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection PreparedStatement cache keyed by SQL text.
+ *
+ * Each pooled physical connection owns one cache (bounded, LRU). DAOs call
+ * StatementCache.prepare(conn, sql) instead of conn.prepareStatement(sql);
+ * the returned statement can be closed as usual - close() only clears its
+ * parameters and hands it back to the cache. Connections that are not from
+ * the pool fall back to a plain prepareStatement.
+ *
+ * Hit/miss/eviction counters are global across all connections.
+ */
+public final class StatementCache {
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Prepare (or reuse) a statement on the given connection.
+     */
+    static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        return prepare(conn, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Prepare (or reuse) a statement on the given connection.
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+     */
+    static PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        StatementCache cache = ConnectionPool.statementCacheOf(conn);
+        if (cache == null || cache.maxSize <= 0) return conn.prepareStatement(sql, autoGeneratedKeys);
+        return cache.checkout(sql, autoGeneratedKeys);
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    public static long getEvictions() {
+        return EVICTIONS.get();
+    }
+
+    public static double getHitRatio() {
+        long h = HITS.get();
+        long total = h + MISSES.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private synchronized PreparedStatement checkout(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys + "|" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse && !cached.delegate.isClosed()) {
+            HITS.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        MISSES.incrementAndGet();
+        PreparedStatement ps = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null && cached.inUse) {
+            // same SQL already checked out on this connection (nested use) - hand out an uncached statement
+            return ps;
+        }
+        cached = new CachedStatement(ps);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    private synchronized void checkin(CachedStatement cached) throws SQLException {
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.delegate.close();
+            return;
+        }
+        cached.delegate.clearParameters();
+        cached.delegate.clearBatch();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            EVICTIONS.incrementAndGet();
+            eldest.evicted = true;
+            if (!eldest.inUse) closeQuietly(eldest.delegate);
+        }
+    }
+
+    /**
+     * Close every cached statement (called when the physical connection is discarded).
+     */
+    synchronized void clear() {
+        for (CachedStatement c : statements.values()) closeQuietly(c.delegate);
+        statements.clear();
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * A cached statement plus the proxy handed to DAOs; the proxy turns close() into a check-in.
+     */
+    private final class CachedStatement implements InvocationHandler {
+        final PreparedStatement delegate;
+        final PreparedStatement proxy;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement delegate) {
+            this.delegate = delegate;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) checkin(this);
+                    return null;
+                case "isClosed":
+                    return !inUse || delegate.isClosed();
+                case "equals":
+                    return p == args[0];
+                case "hashCode":
+                    return System.identityHashCode(p);
+                default:
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -2,16 +2,45 @@ package com.financeportal.dao;
 
 import com.financeportal.model.Transaction;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO for transaction table.
  */
 public class TransactionDAO {
 
+    // explicit projection; order must match the positional reads in mapRow
+    private static final String COLUMNS =
+            "transaction_id, order_number, account_id, date, type, status, amount, payment_method, notes";
+    private static final String T_COLUMNS =
+            "t.transaction_id, t.order_number, t.account_id, t.date, t.type, t.status, t.amount, t.payment_method, t.notes";
+    private static final String CREATE_SQL =
+            "INSERT INTO transaction (order_number, account_id, date, type, status, amount, payment_method, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FIND_BY_ID_SQL =
+            "SELECT " + COLUMNS + " FROM transaction WHERE transaction_id = ?";
+    private static final String LIST_BY_ACCOUNT_SQL =
+            "SELECT " + COLUMNS + " FROM transaction WHERE account_id = ? ORDER BY date DESC LIMIT ?";
+    private static final String LIST_BY_HOLDER_SQL =
+            "SELECT " + T_COLUMNS + " FROM transaction t JOIN account a ON a.account_id = t.account_id"
+                    + " WHERE a.account_holder_id = ? ORDER BY t.date DESC, t.transaction_id DESC LIMIT ?";
+    private static final String STREAM_BY_ACCOUNT_SQL =
+            "SELECT " + COLUMNS + " FROM transaction WHERE account_id = ? ORDER BY date DESC, transaction_id DESC";
+    private static final String STREAM_ALL_SQL =
+            "SELECT " + COLUMNS + " FROM transaction ORDER BY transaction_id";
+    // Keyset pages: served by an index on (account_id, date, transaction_id)
+    private static final String PAGE_FIRST_SQL =
+            "SELECT " + COLUMNS + " FROM transaction WHERE account_id = ? ORDER BY date DESC, transaction_id DESC LIMIT ?";
+    private static final String PAGE_AFTER_SQL =
+            "SELECT " + COLUMNS + " FROM transaction WHERE account_id = ? AND (date < ? OR (date = ? AND transaction_id < ?))"
+                    + " ORDER BY date DESC, transaction_id DESC LIMIT ?";
+
     public int create(Transaction tx) throws SQLException {
         try (Connection conn = DBConnection.getConnection()) {
             return create(tx, conn);
@@ -23,16 +52,8 @@ public class TransactionDAO {
      * Returns generated transaction id.
      */
     public int create(Transaction tx, Connection conn) throws SQLException {
-        String sql = "INSERT INTO transaction (order_number, account_id, date, type, status, amount, payment_method, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, tx.getOrderNumber());
-            ps.setInt(2, tx.getAccountID());
-            ps.setTimestamp(3, Timestamp.valueOf(tx.getDate() == null ? LocalDateTime.now() : tx.getDate()));
-            ps.setString(4, tx.getType());
-            ps.setString(5, tx.getStatus() == null ? "COMPLETED" : tx.getStatus());
-            ps.setBigDecimal(6, tx.getAmount());
-            ps.setString(7, tx.getPaymentMethod());
-            ps.setString(8, tx.getNotes());
+        try (PreparedStatement ps = StatementCache.prepare(conn, CREATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, tx);
             ps.executeUpdate();
             try (ResultSet rs = ps.getGeneratedKeys()) {
                 if (rs.next()) {
@@ -45,10 +66,33 @@ public class TransactionDAO {
         return -1;
     }
 
+    /**
+     * Insert many transactions with JDBC batching on the given connection (caller controls commit).
+     * Generated ids are set back on each Transaction.
+     * @return number of rows inserted
+     */
+    public int createBatch(List<Transaction> txs, Connection conn) throws SQLException {
+        return createBatch(txs, conn, BatchInsert.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Same as createBatch(txs, conn) with an explicit number of rows per executeBatch.
+     */
+    public int createBatch(List<Transaction> txs, Connection conn, int chunkSize) throws SQLException {
+        return BatchInsert.insert(conn, CREATE_SQL, txs, chunkSize, TransactionDAO::bindInsert, Transaction::setTransactionID);
+    }
+
+    /**
+     * Insert many transactions on a new connection, all or nothing.
+     */
+    public int createBatch(List<Transaction> txs) throws SQLException {
+        return BatchInsert.insertInTransaction(CREATE_SQL, txs, BatchInsert.DEFAULT_CHUNK_SIZE,
+                TransactionDAO::bindInsert, Transaction::setTransactionID);
+    }
+
     public Transaction findById(int transactionId) throws SQLException {
-        String sql = "SELECT * FROM transaction WHERE transaction_id = ?";
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, FIND_BY_ID_SQL)) {
             ps.setInt(1, transactionId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return mapRow(rs);
@@ -58,10 +102,9 @@ public class TransactionDAO {
     }
 
     public List<Transaction> listByAccount(int accountId, int limit) throws SQLException {
-        String sql = "SELECT * FROM transaction WHERE account_id = ? ORDER BY date DESC LIMIT ?";
         List<Transaction> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_BY_ACCOUNT_SQL)) {
             ps.setInt(1, accountId);
             ps.setInt(2, limit);
             try (ResultSet rs = ps.executeQuery()) {
@@ -71,18 +114,151 @@ public class TransactionDAO {
         return list;
     }
 
-    private Transaction mapRow(ResultSet rs) throws SQLException {
+    /**
+     * Newest transactions across all accounts of a holder, in one statement.
+     * Results are globally ordered by date (newest first) and limited to 'limit' rows.
+     */
+    public List<Transaction> listByHolder(int holderId, int limit) throws SQLException {
+        List<Transaction> list = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = StatementCache.prepare(conn, LIST_BY_HOLDER_SQL)) {
+            ps.setInt(1, holderId);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Newest transactions across the given accounts, in one statement.
+     * Results are globally ordered by date (newest first) and limited to 'limit' rows.
+     */
+    public List<Transaction> listByAccounts(Collection<Integer> accountIds, int limit) throws SQLException {
+        List<Transaction> list = new ArrayList<>();
+        if (accountIds == null || accountIds.isEmpty()) return list;
+
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM transaction WHERE account_id IN (");
+        for (int i = 0; i < accountIds.size(); i++) sql.append(i == 0 ? "?" : ", ?");
+        sql.append(") ORDER BY date DESC, transaction_id DESC LIMIT ?");
+
+        // the placeholder count varies per call, so this one bypasses StatementCache
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (Integer id : accountIds) ps.setInt(i++, id);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Stream an account's full history (newest first) in constant memory.
+     * Rows are fetched fetchSize at a time; close the stream to release its connection.
+     */
+    public Stream<Transaction> streamByAccount(int accountId, int fetchSize) throws SQLException {
+        return ResultSetStream.open(STREAM_BY_ACCOUNT_SQL, fetchSize, ps -> ps.setInt(1, accountId), TransactionDAO::mapRow);
+    }
+
+    /**
+     * Stream the whole transaction table in id order (exports, nightly jobs).
+     * Rows are fetched fetchSize at a time; close the stream to release its connection.
+     */
+    public Stream<Transaction> streamAll(int fetchSize) throws SQLException {
+        return ResultSetStream.open(STREAM_ALL_SQL, fetchSize, null, TransactionDAO::mapRow);
+    }
+
+    /**
+     * Page through an account's history, newest first, using keyset pagination on (date, transaction_id).
+     * Every page costs the same index range scan regardless of depth (no OFFSET).
+     *
+     * @param continuationToken null for the first page, otherwise Page.getNextToken() from the previous page
+     * @param pageSize rows per page (> 0)
+     */
+    public Page<Transaction> listByAccountPage(int accountId, String continuationToken, int pageSize) throws SQLException {
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        List<Transaction> list = new ArrayList<>(pageSize + 1);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = StatementCache.prepare(conn, continuationToken == null ? PAGE_FIRST_SQL : PAGE_AFTER_SQL)) {
+            int i = 1;
+            ps.setInt(i++, accountId);
+            if (continuationToken != null) {
+                PageCursor cursor = PageCursor.decode(continuationToken);
+                ps.setTimestamp(i++, Timestamp.valueOf(cursor.date));
+                ps.setTimestamp(i++, Timestamp.valueOf(cursor.date));
+                ps.setInt(i++, cursor.id);
+            }
+            // one extra row tells us whether another page exists
+            ps.setInt(i, pageSize + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+        }
+
+        String next = null;
+        if (list.size() > pageSize) {
+            list.remove(pageSize);
+            Transaction last = list.get(pageSize - 1);
+            next = new PageCursor(last.getDate(), last.getTransactionID()).encode();
+        }
+        return new Page<>(list, next);
+    }
+
+    private static void bindInsert(PreparedStatement ps, Transaction tx) throws SQLException {
+        ps.setString(1, tx.getOrderNumber());
+        ps.setInt(2, tx.getAccountID());
+        ps.setTimestamp(3, Timestamp.valueOf(tx.getDate() == null ? LocalDateTime.now() : tx.getDate()));
+        ps.setString(4, tx.getType());
+        ps.setString(5, tx.getStatus() == null ? "COMPLETED" : tx.getStatus());
+        ps.setBigDecimal(6, tx.getAmount());
+        ps.setString(7, tx.getPaymentMethod());
+        ps.setString(8, tx.getNotes());
+    }
+
+    /**
+     * Position of the last row of a page: (date, transaction_id), encoded as a URL-safe token.
+     */
+    private static final class PageCursor {
+        final LocalDateTime date;
+        final int id;
+
+        PageCursor(LocalDateTime date, int id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = date + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new PageCursor(LocalDateTime.parse(raw.substring(0, sep)), Integer.parseInt(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid continuation token", e);
+            }
+        }
+    }
+
+    private static Transaction mapRow(ResultSet rs) throws SQLException {
         Transaction t = new Transaction();
-        t.setTransactionID(rs.getInt("transaction_id"));
-        t.setOrderNumber(rs.getString("order_number"));
-        t.setAccountID(rs.getInt("account_id"));
-        Timestamp ts = rs.getTimestamp("date");
+        t.setTransactionID(rs.getInt(1));
+        t.setOrderNumber(rs.getString(2));
+        t.setAccountID(rs.getInt(3));
+        Timestamp ts = rs.getTimestamp(4);
         if (ts != null) t.setDate(ts.toLocalDateTime());
-        t.setType(rs.getString("type"));
-        t.setStatus(rs.getString("status"));
-        t.setAmount(rs.getBigDecimal("amount"));
-        t.setPaymentMethod(rs.getString("payment_method"));
-        t.setNotes(rs.getString("notes"));
+        t.setType(rs.getString(5));
+        t.setStatus(rs.getString(6));
+        t.setAmount(rs.getBigDecimal(7));
+        t.setPaymentMethod(rs.getString(8));
+        t.setNotes(rs.getString(9));
         return t;
     }
 }
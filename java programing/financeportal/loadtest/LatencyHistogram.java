@@ -0,0 +1,67 @@
+package com.financeportal.loadtest;
+
+/**
+ * Fixed-size log-linear latency histogram (nanoseconds).
+ *
+ * Values below 64 ns are exact; above that every power of two is split into 64 buckets, so a
+ * reported percentile is within ~1.6% of the true value. Recording is allocation-free. Not
+ * thread-safe: each worker keeps its own and they are merged with add(...) at the end.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB];
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts[index(v)]++;
+        total++;
+        if (v > max) max = v;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0 < p <= 1), capped at the maximum.
+     */
+    long percentile(double p) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, lowerBound(i + 1) - 1);
+        }
+        return max;
+    }
+
+    private static int index(long v) {
+        if (v < SUB) return (int) v;
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (magnitude - SUB_BITS)) & (SUB - 1);
+        return (magnitude - SUB_BITS + 1) * SUB + sub;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB) return index;
+        int magnitude = index / SUB + SUB_BITS - 1;
+        if (magnitude > 62) return Long.MAX_VALUE;
+        return (long) (SUB + index % SUB) << (magnitude - SUB_BITS);
+    }
+}
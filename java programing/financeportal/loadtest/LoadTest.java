@@ -0,0 +1,275 @@
+package com.financeportal.loadtest;
+
+import com.financeportal.dao.AccountDAO;
+import com.financeportal.dao.AccountHolderDAO;
+import com.financeportal.dao.DBConnection;
+import com.financeportal.dao.StatementCache;
+import com.financeportal.dao.TransactionDAO;
+import com.financeportal.model.Account;
+import com.financeportal.model.AccountHolder;
+import com.financeportal.service.AccountLockManager;
+import com.financeportal.service.TransactionService;
+import com.financeportal.util.PasswordUtil;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load generator for transfers, logins and history reads.
+ *
+ * Seeds N account holders (each with M funded accounts), then drives a weighted mix of
+ * TransactionService.transfer, AccountHolderDAO.authenticate and TransactionDAO.listByHolder
+ * from many threads. Throughput and p50/p99/p999 latency per operation are written to a file.
+ *
+ * Usage (all options optional, defaults shown):
+ *   java -Ddb.url=... com.financeportal.loadtest.LoadTest
+ *       --holders=100 --accountsPerHolder=2 --threads=16 --warmupSec=5 --durationSec=30
+ *       --mix=transfer:70,login:10,history:20 --out=loadtest-report.txt --createSchema=false
+ *
+ * For an isolated box run against a local stand-in database, e.g. H2 in MySQL mode:
+ *   -Ddb.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1 -Ddb.user=sa --createSchema=true
+ * Seeded rows are not removed; use a throwaway database.
+ */
+public final class LoadTest {
+
+    private static final String PASSWORD = "LoadTest@123";
+    private static final BigDecimal SEED_BALANCE = new BigDecimal("1000000.00");
+    private static final int HISTORY_LIMIT = 50;
+    private static final String[] OPS = {"transfer", "login", "history"};
+
+    private final Map<String, String> options;
+    private final TransactionService transactionService = new TransactionService();
+    private final AccountHolderDAO holderDAO = new AccountHolderDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+
+    private final List<Integer> holderIds = new ArrayList<>();
+    private final List<String> usernames = new ArrayList<>();
+    private final List<Integer> accountIds = new ArrayList<>();
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--") || !a.contains("=")) throw new IllegalArgumentException("Expected --key=value, got " + a);
+            options.put(a.substring(2, a.indexOf('=')), a.substring(a.indexOf('=') + 1));
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        int holders = intOption("holders", 100);
+        int accountsPerHolder = intOption("accountsPerHolder", 2);
+        int threads = intOption("threads", 16);
+        int warmupSec = intOption("warmupSec", 5);
+        int durationSec = intOption("durationSec", 30);
+        int[] weights = parseMix(options.getOrDefault("mix", "transfer:70,login:10,history:20"));
+        String out = options.getOrDefault("out", "loadtest-report.txt");
+        if (holders < 1 || accountsPerHolder < 1 || threads < 1 || durationSec < 1)
+            throw new IllegalArgumentException("holders, accountsPerHolder, threads and durationSec must be >= 1");
+        if (holders * accountsPerHolder < 2) throw new IllegalArgumentException("Transfers need at least two accounts");
+
+        if (Boolean.parseBoolean(options.getOrDefault("createSchema", "false"))) LoadTestSchema.create();
+        long seedStart = System.nanoTime();
+        seed(holders, accountsPerHolder);
+        System.out.printf("Seeded %d holders / %d accounts in %.1f s%n",
+                holderIds.size(), accountIds.size(), (System.nanoTime() - seedStart) / 1e9);
+
+        long startAt = System.nanoTime() + warmupSec * 1_000_000_000L;
+        long endAt = startAt + durationSec * 1_000_000_000L;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker w = new Worker(weights, startAt, endAt);
+            futures.add(pool.submit(() -> {
+                w.loop();
+                return w;
+            }));
+        }
+        Worker total = new Worker(weights, startAt, endAt);
+        for (Future<Worker> f : futures) total.add(f.get());
+        pool.shutdown();
+
+        String report = report(total, threads, warmupSec, durationSec);
+        Files.write(Paths.get(out), report.getBytes(StandardCharsets.UTF_8));
+        System.out.print(report);
+        System.out.println("Report written to " + out);
+    }
+
+    private void seed(int holders, int accountsPerHolder) throws Exception {
+        // one PBKDF2 hash for everybody: logins still pay the full verification cost
+        String hash = PasswordUtil.hashPassword(PASSWORD);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<Account> accounts = new ArrayList<>(holders * accountsPerHolder);
+        for (int i = 0; i < holders; i++) {
+            AccountHolder h = new AccountHolder();
+            h.setUsername("lt" + runId + "_" + i);
+            h.setPasswordHash(hash);
+            h.setEmail(h.getUsername() + "@loadtest.local");
+            h.setFullName("Load Test " + i);
+            h.setRole("CUSTOMER");
+            int id = holderDAO.create(h);
+            if (id <= 0) throw new IllegalStateException("Could not create holder " + h.getUsername());
+            holderIds.add(id);
+            usernames.add(h.getUsername());
+            for (int j = 0; j < accountsPerHolder; j++) {
+                Account a = new Account();
+                a.setAccountHolderID(id);
+                a.setAccountNumber("LT" + runId.toUpperCase(Locale.ROOT) + "-" + i + "-" + j);
+                a.setAccountType("CHECKING");
+                a.setBalance(SEED_BALANCE);
+                a.setCreatedAt(LocalDateTime.now());
+                a.setStatus("ACTIVE");
+                accounts.add(a);
+            }
+        }
+        new AccountDAO().createBatch(accounts);
+        for (Account a : accounts) accountIds.add(a.getAccountID());
+    }
+
+    /**
+     * One load thread: picks an operation by weight, times it, and keeps its own histograms.
+     */
+    private final class Worker {
+        final int[] weights;
+        final long startAt;
+        final long endAt;
+        final LatencyHistogram[] latency = new LatencyHistogram[OPS.length];
+        final long[] errors = new long[OPS.length];
+        final long[] rejected = new long[OPS.length];
+
+        Worker(int[] weights, long startAt, long endAt) {
+            this.weights = weights;
+            this.startAt = startAt;
+            this.endAt = endAt;
+            for (int i = 0; i < OPS.length; i++) latency[i] = new LatencyHistogram();
+        }
+
+        void loop() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            int totalWeight = 0;
+            for (int w : weights) totalWeight += w;
+            long now;
+            while ((now = System.nanoTime()) < endAt) {
+                int pick = rnd.nextInt(totalWeight);
+                int op = 0;
+                while (pick >= weights[op]) pick -= weights[op++];
+
+                boolean measured = now >= startAt;
+                long t0 = System.nanoTime();
+                try {
+                    if (!execute(op, rnd) && measured) rejected[op]++;
+                } catch (Exception ex) {
+                    if (measured) errors[op]++;
+                }
+                if (measured) latency[op].record(System.nanoTime() - t0);
+            }
+        }
+
+        /** @return false if the operation was refused by a business rule (e.g. insufficient funds) */
+        private boolean execute(int op, ThreadLocalRandom rnd) throws Exception {
+            switch (op) {
+                case 0: {
+                    int from = accountIds.get(rnd.nextInt(accountIds.size()));
+                    int to;
+                    do {
+                        to = accountIds.get(rnd.nextInt(accountIds.size()));
+                    } while (to == from);
+                    try {
+                        return transactionService.transfer(from, to, BigDecimal.valueOf(rnd.nextInt(1, 10_000), 2));
+                    } catch (IllegalStateException ex) {
+                        // only the funds check is a business refusal; anything else is an error
+                        if (ex.getMessage() == null || !ex.getMessage().startsWith("Insufficient funds")) throw ex;
+                        return false;
+                    }
+                }
+                case 1: {
+                    int i = rnd.nextInt(usernames.size());
+                    return holderDAO.authenticate(usernames.get(i), PASSWORD) != null;
+                }
+                default: {
+                    transactionDAO.listByHolder(holderIds.get(rnd.nextInt(holderIds.size())), HISTORY_LIMIT);
+                    return true;
+                }
+            }
+        }
+
+        void add(Worker other) {
+            for (int i = 0; i < OPS.length; i++) {
+                latency[i].add(other.latency[i]);
+                errors[i] += other.errors[i];
+                rejected[i] += other.rejected[i];
+            }
+        }
+    }
+
+    private String report(Worker total, int threads, int warmupSec, int durationSec) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Finance Portal load test - ").append(LocalDateTime.now()).append('\n');
+        sb.append(String.format(Locale.ROOT, "holders=%d accounts=%d threads=%d warmup=%ds duration=%ds mix=%s%n",
+                holderIds.size(), accountIds.size(), threads, warmupSec, durationSec,
+                options.getOrDefault("mix", "transfer:70,login:10,history:20")));
+        sb.append(String.format(Locale.ROOT, "%-10s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "op", "count", "errors", "rejected", "ops/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        LatencyHistogram all = new LatencyHistogram();
+        long errors = 0;
+        long rejected = 0;
+        for (int i = 0; i < OPS.length; i++) {
+            appendRow(sb, OPS[i], total.latency[i], total.errors[i], total.rejected[i], durationSec);
+            all.add(total.latency[i]);
+            errors += total.errors[i];
+            rejected += total.rejected[i];
+        }
+        appendRow(sb, "total", all, errors, rejected, durationSec);
+
+        AccountLockManager locks = TransactionService.getAccountLocks();
+        sb.append(String.format(Locale.ROOT, "pool: max=%d active=%d idle=%d  statement cache hit ratio=%.3f%n",
+                DBConnection.getMaxPoolSize(), DBConnection.getActiveConnections(), DBConnection.getIdleConnections(),
+                StatementCache.getHitRatio()));
+        sb.append(String.format(Locale.ROOT, "account locks: acquisitions=%d contended=%d wait=%d ms%n",
+                locks.getAcquisitions(), locks.getContendedAcquisitions(), locks.getTotalWaitMillis()));
+        return sb.toString();
+    }
+
+    private static void appendRow(StringBuilder sb, String op, LatencyHistogram h, long errors, long rejected, int durationSec) {
+        sb.append(String.format(Locale.ROOT, "%-10s %10d %8d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                op, h.count(), errors, rejected, (double) h.count() / durationSec,
+                h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6, h.max() / 1e6));
+    }
+
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[OPS.length];
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            int op = -1;
+            for (int i = 0; i < OPS.length; i++) if (OPS[i].equalsIgnoreCase(kv[0].trim())) op = i;
+            if (op < 0 || kv.length != 2) throw new IllegalArgumentException("Bad mix entry: " + part);
+            weights[op] = Integer.parseInt(kv[1].trim());
+            if (weights[op] < 0) throw new IllegalArgumentException("Mix weights cannot be negative");
+        }
+        int sum = 0;
+        for (int w : weights) sum += w;
+        if (sum <= 0) throw new IllegalArgumentException("Mix needs at least one positive weight");
+        return weights;
+    }
+
+    private int intOption(String key, int defaultValue) {
+        String v = options.get(key);
+        return v == null ? defaultValue : Integer.parseInt(v.trim());
+    }
+}
@@ -0,0 +1,43 @@
+package com.financeportal.loadtest;
+
+import com.financeportal.dao.DBConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Minimal schema for the tables the load test touches, for an empty stand-in database
+ * (e.g. db.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1 with the H2 jar on the classpath).
+ * Plain MySQL DDL; against the real finance_portal database the tables already exist and this is skipped.
+ */
+final class LoadTestSchema {
+
+    private static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS account_holder ("
+                    + " account_holder_id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " username VARCHAR(64) NOT NULL UNIQUE, password_hash VARCHAR(255), email VARCHAR(255),"
+                    + " full_name VARCHAR(255), role VARCHAR(32), created_at DATETIME, last_login DATETIME,"
+                    + " status VARCHAR(16))",
+            "CREATE TABLE IF NOT EXISTS account ("
+                    + " account_id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " account_number VARCHAR(32) NOT NULL UNIQUE, account_holder_id INT NOT NULL,"
+                    + " account_type VARCHAR(32), balance DECIMAL(15,2) NOT NULL, created_at DATETIME,"
+                    + " status VARCHAR(16), version BIGINT NOT NULL DEFAULT 0,"
+                    + " INDEX idx_account_holder (account_holder_id))",
+            "CREATE TABLE IF NOT EXISTS transaction ("
+                    + " transaction_id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " order_number VARCHAR(64), account_id INT NOT NULL, date DATETIME, type VARCHAR(16),"
+                    + " status VARCHAR(16), amount DECIMAL(15,2), payment_method VARCHAR(32), notes VARCHAR(255),"
+                    + " INDEX idx_transaction_account_date (account_id, date, transaction_id))"
+    };
+
+    private LoadTestSchema() {}
+
+    static void create() throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            for (String sql : DDL) st.execute(sql);
+        }
+    }
+}
@@ -11,6 +11,7 @@ public class Account {
     private BigDecimal balance;
     private LocalDateTime createdAt;
     private String status;
+    private long version;
 
     public int getAccountID() { return accountID; }
     public void setAccountID(int accountID) { this.accountID = accountID; }
@@ -32,4 +33,7 @@ public class Account {
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
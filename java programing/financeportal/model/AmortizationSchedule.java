@@ -0,0 +1,139 @@
+package com.financeportal.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Immutable repayment schedule of one loan, in long cents.
+ *
+ * Installments are numbered 1..n. Prefix sums of payments and interest are built once, so
+ * outstanding principal, payoff quotes and the interest/principal split of any payment are
+ * lookups (at most a binary search over the n installments) rather than a recomputation.
+ * Payments are allocated installment by installment, interest before principal.
+ */
+public final class AmortizationSchedule {
+
+    public static final String ANNUITY = "ANNUITY";
+    public static final String FLAT = "FLAT";
+    public static final String INTEREST_ONLY = "INTEREST_ONLY";
+
+    private final int loanID;
+    private final String repaymentType;
+    private final LocalDate[] dueDates;
+    private final long[] principal;
+    private final long[] interest;
+    private final long[] balanceAfter;
+    private final long[] cumPayment;   // cumPayment[k] = payments of installments 1..k
+    private final long[] cumInterest;  // cumInterest[k] = interest of installments 1..k
+
+    public AmortizationSchedule(int loanID, String repaymentType, LocalDate[] dueDates, long[] principal, long[] interest) {
+        int n = dueDates.length;
+        if (n == 0 || principal.length != n || interest.length != n)
+            throw new IllegalArgumentException("Schedule arrays must be non-empty and of equal length");
+        this.loanID = loanID;
+        this.repaymentType = repaymentType;
+        this.dueDates = dueDates.clone();
+        this.principal = principal.clone();
+        this.interest = interest.clone();
+        this.balanceAfter = new long[n];
+        this.cumPayment = new long[n + 1];
+        this.cumInterest = new long[n + 1];
+
+        long balance = 0;
+        for (long p : principal) balance += p;
+        for (int k = 0; k < n; k++) {
+            balance -= principal[k];
+            balanceAfter[k] = balance;
+            cumPayment[k + 1] = cumPayment[k] + principal[k] + interest[k];
+            cumInterest[k + 1] = cumInterest[k] + interest[k];
+        }
+    }
+
+    public int getLoanID() { return loanID; }
+
+    public String getRepaymentType() { return repaymentType; }
+
+    public int getInstallmentCount() { return dueDates.length; }
+
+    public LocalDate getDueDate(int installmentNo) { return dueDates[index(installmentNo)]; }
+
+    public long getPaymentCents(int installmentNo) {
+        int k = index(installmentNo);
+        return principal[k] + interest[k];
+    }
+
+    public long getPrincipalCents(int installmentNo) { return principal[index(installmentNo)]; }
+
+    public long getInterestCents(int installmentNo) { return interest[index(installmentNo)]; }
+
+    public long getBalanceAfterCents(int installmentNo) { return balanceAfter[index(installmentNo)]; }
+
+    public long getPrincipalTotalCents() { return cumPayment[dueDates.length] - cumInterest[dueDates.length]; }
+
+    public long getInterestTotalCents() { return cumInterest[dueDates.length]; }
+
+    public long getTotalCents() { return cumPayment[dueDates.length]; }
+
+    /**
+     * Principal still owed once the given number of installments has been paid in full.
+     */
+    public long outstandingPrincipalCents(int installmentsPaid) {
+        if (installmentsPaid <= 0) return getPrincipalTotalCents();
+        if (installmentsPaid >= dueDates.length) return 0;
+        return balanceAfter[installmentsPaid - 1];
+    }
+
+    /**
+     * Amount that settles the loan on the given day after paidToDateCents were paid: outstanding
+     * principal plus the running installment's interest pro rata by days, less any part of the
+     * running installment already paid.
+     */
+    public long payoffQuoteCents(long paidToDateCents, LocalDate asOf) {
+        int k = installmentsCoveredBy(paidToDateCents);
+        if (k >= dueDates.length) return 0;
+        LocalDate periodStart = k == 0 ? dueDates[0].minusMonths(1) : dueDates[k - 1];
+        long periodDays = Math.max(1, ChronoUnit.DAYS.between(periodStart, dueDates[k]));
+        long elapsed = Math.min(periodDays, Math.max(0, ChronoUnit.DAYS.between(periodStart, asOf)));
+        long quote = outstandingPrincipalCents(k) + interest[k] * elapsed / periodDays;
+        return Math.max(0, quote - (paidToDateCents - cumPayment[k]));
+    }
+
+    /**
+     * Interest part of a payment of amountCents made after paidToDateCents were already paid;
+     * the rest of the payment is principal. Amounts beyond the schedule total count as principal.
+     */
+    public long interestPortionCents(long paidToDateCents, long amountCents) {
+        return interestCoveredBy(paidToDateCents + amountCents) - interestCoveredBy(paidToDateCents);
+    }
+
+    /**
+     * Number of installments fully covered by the given cumulative payments: the largest k with
+     * cumPayment[k] <= paid. Zero-payment installments repeat prefix sums, so this searches for the
+     * first prefix above the paid amount rather than for an equal one.
+     */
+    public int installmentsCoveredBy(long paidToDateCents) {
+        long paid = Math.max(0, paidToDateCents);
+        int lo = 0;
+        int hi = cumPayment.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumPayment[mid] <= paid) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    private long interestCoveredBy(long paidCents) {
+        int n = dueDates.length;
+        if (paidCents <= 0) return 0;
+        if (paidCents >= cumPayment[n]) return cumInterest[n];
+        int k = installmentsCoveredBy(paidCents);
+        return cumInterest[k] + Math.min(paidCents - cumPayment[k], interest[k]);
+    }
+
+    private int index(int installmentNo) {
+        if (installmentNo < 1 || installmentNo > dueDates.length)
+            throw new IllegalArgumentException("Installment " + installmentNo + " out of range 1.." + dueDates.length);
+        return installmentNo - 1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.financeportal.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Closing balance of one account at the end of one day (balance_snapshot table).
+ */
+public class BalanceSnapshot {
+    private int accountID;
+    private LocalDate snapshotDate;
+    private BigDecimal balance;
+
+    public int getAccountID() { return accountID; }
+    public void setAccountID(int accountID) { this.accountID = accountID; }
+
+    public LocalDate getSnapshotDate() { return snapshotDate; }
+    public void setSnapshotDate(LocalDate snapshotDate) { this.snapshotDate = snapshotDate; }
+
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+}
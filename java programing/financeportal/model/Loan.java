@@ -11,6 +11,9 @@ public class Loan {
     private int termMonths;
     private String status;
     private LocalDateTime createdAt;
+    private String repaymentType; // "ANNUITY", "FLAT" or "INTEREST_ONLY"
+    private BigDecimal outstandingPrincipal; // null until disbursed
+    private BigDecimal outstandingInterest;
 
     public int getLoanID() { return loanID; }
     public void setLoanID(int loanID) { this.loanID = loanID; }
@@ -32,4 +35,13 @@ public class Loan {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getRepaymentType() { return repaymentType; }
+    public void setRepaymentType(String repaymentType) { this.repaymentType = repaymentType; }
+
+    public BigDecimal getOutstandingPrincipal() { return outstandingPrincipal; }
+    public void setOutstandingPrincipal(BigDecimal outstandingPrincipal) { this.outstandingPrincipal = outstandingPrincipal; }
+
+    public BigDecimal getOutstandingInterest() { return outstandingInterest; }
+    public void setOutstandingInterest(BigDecimal outstandingInterest) { this.outstandingInterest = outstandingInterest; }
 }
@@ -0,0 +1,22 @@
+package com.financeportal.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One day's interest accrual posting for a loan (loan_accrual table, amount has 4 decimals).
+ */
+public class LoanAccrual {
+    private int loanID;
+    private LocalDate accrualDate;
+    private BigDecimal amount;
+
+    public int getLoanID() { return loanID; }
+    public void setLoanID(int loanID) { this.loanID = loanID; }
+
+    public LocalDate getAccrualDate() { return accrualDate; }
+    public void setAccrualDate(LocalDate accrualDate) { this.accrualDate = accrualDate; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
@@ -0,0 +1,42 @@
+package com.financeportal.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One repayment of a loan and how it was split between interest and principal (loan_repayment table).
+ */
+public class LoanRepayment {
+    private int repaymentID;
+    private int loanID;
+    private int accountID;
+    private int transactionID;
+    private BigDecimal amount;
+    private BigDecimal principalPart;
+    private BigDecimal interestPart;
+    private LocalDateTime paidAt;
+
+    public int getRepaymentID() { return repaymentID; }
+    public void setRepaymentID(int repaymentID) { this.repaymentID = repaymentID; }
+
+    public int getLoanID() { return loanID; }
+    public void setLoanID(int loanID) { this.loanID = loanID; }
+
+    public int getAccountID() { return accountID; }
+    public void setAccountID(int accountID) { this.accountID = accountID; }
+
+    public int getTransactionID() { return transactionID; }
+    public void setTransactionID(int transactionID) { this.transactionID = transactionID; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public BigDecimal getPrincipalPart() { return principalPart; }
+    public void setPrincipalPart(BigDecimal principalPart) { this.principalPart = principalPart; }
+
+    public BigDecimal getInterestPart() { return interestPart; }
+    public void setInterestPart(BigDecimal interestPart) { this.interestPart = interestPart; }
+
+    public LocalDateTime getPaidAt() { return paidAt; }
+    public void setPaidAt(LocalDateTime paidAt) { this.paidAt = paidAt; }
+}
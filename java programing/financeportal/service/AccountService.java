@@ -1,10 +1,12 @@
 package com.financeportal.service;
 
 import com.financeportal.dao.AccountDAO;
+import com.financeportal.dao.BalanceSnapshotDAO;
 import com.financeportal.model.Account;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.UUID;
 
 /**
@@ -12,15 +14,17 @@ import java.util.UUID;
  *
  * Responsibilities:
  *  - Open accounts (generate account number, initial deposit)
- *  - Retrieve accounts
+ *  - Retrieve accounts and historical (as-of-date) balances
  *  - Provide helper operations used by UI
  */
 public class AccountService {
 
     private final AccountDAO accountDAO;
+    private final BalanceSnapshotDAO balanceSnapshotDAO;
 
     public AccountService() {
         this.accountDAO = new AccountDAO();
+        this.balanceSnapshotDAO = new BalanceSnapshotDAO();
     }
 
     /**
@@ -57,6 +61,20 @@ public class AccountService {
         return accountDAO.getById(accountId);
     }
 
+    /**
+     * Closing balance of an account at the end of the given day, from the nearest daily
+     * checkpoint plus the transactions in between. Zero for days before the account was opened.
+     */
+    public BigDecimal getBalanceAsOf(int accountId, LocalDate day) throws SQLException {
+        if (accountId <= 0) throw new IllegalArgumentException("accountId must be positive");
+        if (day == null) throw new IllegalArgumentException("day required");
+        Account account = accountDAO.getById(accountId);
+        if (account == null) throw new IllegalArgumentException("Account not found: " + accountId);
+        // the opening deposit has no transaction row, so replay cannot go back past it
+        if (account.getCreatedAt() != null && day.isBefore(account.getCreatedAt().toLocalDate())) return BigDecimal.ZERO;
+        return balanceSnapshotDAO.balanceAsOf(accountId, day);
+    }
+
     /**
      * Generate a reasonably unique account number for the prototype.
      * For production, replace with bank-grade algorithm.
@@ -0,0 +1,85 @@
+package com.financeportal.service;
+
+import com.financeportal.model.AmortizationSchedule;
+import com.financeportal.model.Loan;
+import com.financeportal.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Builds amortization schedules in fixed point (long cents, monthly rate in nanos).
+ *
+ * interestRate on Loan is the annual rate as a fraction (0.05 = 5%); interest is charged
+ * monthly at annualRate / 12 and rounded to the cent per installment.
+ *  - ANNUITY:       equal payments; interest on the running balance, the rest repays principal.
+ *  - FLAT:          interest on the original principal every month, principal in equal parts.
+ *  - INTEREST_ONLY: interest on the balance every month, all principal with the last installment.
+ * Rounding residue always goes to the last installment, so principal parts sum to the principal exactly.
+ */
+public final class AmortizationEngine {
+
+    private AmortizationEngine() {}
+
+    /**
+     * Schedule of a loan with installments due monthly from one month after startDate.
+     */
+    public static AmortizationSchedule build(Loan loan, LocalDate startDate) {
+        if (loan.getPrincipal() == null || loan.getPrincipal().signum() <= 0)
+            throw new IllegalArgumentException("Principal must be positive");
+        String type = loan.getRepaymentType() == null ? AmortizationSchedule.ANNUITY : loan.getRepaymentType();
+        return build(loan.getLoanID(), type, FixedPoint.toCents(loan.getPrincipal()),
+                FixedPoint.rateToNanos(loan.getInterestRate(), 12), loan.getTermMonths(), startDate);
+    }
+
+    static AmortizationSchedule build(int loanId, String type, long principalCents, long monthlyRateNanos,
+                                      int termMonths, LocalDate startDate) {
+        if (termMonths < 1) throw new IllegalArgumentException("termMonths must be >= 1");
+        if (monthlyRateNanos < 0) throw new IllegalArgumentException("interest rate cannot be negative");
+
+        LocalDate[] due = new LocalDate[termMonths];
+        long[] principal = new long[termMonths];
+        long[] interest = new long[termMonths];
+        long payment = AmortizationSchedule.ANNUITY.equals(type) ? annuityPaymentCents(principalCents, monthlyRateNanos, termMonths) : 0;
+        long flatInterest = FixedPoint.mulDivRound(principalCents, monthlyRateNanos, FixedPoint.RATE_SCALE);
+        long flatPrincipal = principalCents / termMonths;
+
+        long balance = principalCents;
+        for (int k = 0; k < termMonths; k++) {
+            boolean last = k == termMonths - 1;
+            due[k] = startDate.plusMonths(k + 1L);
+            switch (type) {
+                case AmortizationSchedule.ANNUITY:
+                    interest[k] = FixedPoint.mulDivRound(balance, monthlyRateNanos, FixedPoint.RATE_SCALE);
+                    principal[k] = last ? balance : Math.min(balance, Math.max(0, payment - interest[k]));
+                    break;
+                case AmortizationSchedule.FLAT:
+                    interest[k] = flatInterest;
+                    principal[k] = last ? balance : flatPrincipal;
+                    break;
+                case AmortizationSchedule.INTEREST_ONLY:
+                    interest[k] = FixedPoint.mulDivRound(balance, monthlyRateNanos, FixedPoint.RATE_SCALE);
+                    principal[k] = last ? balance : 0;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown repayment type: " + type);
+            }
+            balance -= principal[k];
+        }
+        return new AmortizationSchedule(loanId, type, due, principal, interest);
+    }
+
+    /**
+     * Level payment P*r / (1 - (1+r)^-n), rounded up to the cent (computed once per loan).
+     */
+    static long annuityPaymentCents(long principalCents, long monthlyRateNanos, int termMonths) {
+        if (monthlyRateNanos == 0) return (principalCents + termMonths - 1) / termMonths;
+        MathContext mc = MathContext.DECIMAL128;
+        BigDecimal r = BigDecimal.valueOf(monthlyRateNanos, 9);
+        BigDecimal discount = BigDecimal.ONE.subtract(BigDecimal.ONE.divide(BigDecimal.ONE.add(r).pow(termMonths, mc), mc));
+        return BigDecimal.valueOf(principalCents).multiply(r, mc).divide(discount, mc)
+                .setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+}
@@ -0,0 +1,119 @@
+package com.financeportal.service;
+
+import com.financeportal.dao.DBConnection;
+import com.financeportal.model.Account;
+import com.financeportal.model.Loan;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * CompletableFuture-returning facade over TransactionService, LoanService and AccountService.
+ *
+ * Every call runs on its own virtual thread, so callers can fan out thousands of operations
+ * without a platform thread each. A semaphore sized to the connection pool caps how many
+ * operations touch the database at once; the rest wait cheaply on their virtual threads
+ * instead of timing out in ConnectionPool.borrow().
+ *
+ * Futures complete exceptionally with the same exceptions the blocking methods throw.
+ */
+public final class AsyncServices implements AutoCloseable {
+
+    private final TransactionService transactionService;
+    private final LoanService loanService;
+    private final AccountService accountService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore dbPermits;
+
+    public AsyncServices() {
+        this(new TransactionService(), new LoanService(), new AccountService(), DBConnection.getMaxPoolSize());
+    }
+
+    public AsyncServices(TransactionService transactionService, LoanService loanService,
+                         AccountService accountService, int maxConcurrentDbCalls) {
+        if (maxConcurrentDbCalls < 1) throw new IllegalArgumentException("maxConcurrentDbCalls must be >= 1");
+        this.transactionService = transactionService;
+        this.loanService = loanService;
+        this.accountService = accountService;
+        this.dbPermits = new Semaphore(maxConcurrentDbCalls, true);
+    }
+
+    /* -------------------- TransactionService -------------------- */
+
+    public CompletableFuture<Boolean> transfer(int fromAccountId, int toAccountId, BigDecimal amount) {
+        return submit(() -> transactionService.transfer(fromAccountId, toAccountId, amount));
+    }
+
+    public CompletableFuture<Integer> transferBulk(List<TransferRequest> transfers) {
+        return submit(() -> transactionService.transferBulk(transfers));
+    }
+
+    /* -------------------- LoanService -------------------- */
+
+    public CompletableFuture<Integer> applyForLoan(Loan loan) {
+        return submit(() -> loanService.applyForLoan(loan));
+    }
+
+    public CompletableFuture<Integer> approveAndDisburse(int loanId, int accountId) {
+        return submit(() -> loanService.approveAndDisburse(loanId, accountId));
+    }
+
+    public CompletableFuture<List<DisbursementResult>> approveAndDisburseBatch(List<DisbursementRequest> requests) {
+        return submit(() -> loanService.approveAndDisburseBatch(requests));
+    }
+
+    public CompletableFuture<Integer> repayLoan(int loanId, int accountId, BigDecimal amount) {
+        return submit(() -> loanService.repayLoan(loanId, accountId, amount));
+    }
+
+    /* -------------------- AccountService -------------------- */
+
+    public CompletableFuture<Integer> openAccount(int accountHolderId, String accountType, BigDecimal initialDeposit) {
+        return submit(() -> accountService.openAccount(accountHolderId, accountType, initialDeposit));
+    }
+
+    public CompletableFuture<Account> getAccount(int accountId) {
+        return submit(() -> accountService.getAccount(accountId));
+    }
+
+    /**
+     * Operations currently waiting for a database slot.
+     */
+    public int getQueuedOperations() {
+        return dbPermits.getQueueLength();
+    }
+
+    /**
+     * Stop accepting work and wait for running operations to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                dbPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                f.completeExceptionally(e);
+                return;
+            }
+            try {
+                f.complete(call.call());
+            } catch (Throwable t) {
+                f.completeExceptionally(t);
+            } finally {
+                dbPermits.release();
+            }
+        });
+        return f;
+    }
+}
@@ -0,0 +1,16 @@
+package com.financeportal.service;
+
+/**
+ * Thrown when an optimistic (version-checked) update lost a race with another writer.
+ * The operation can be retried from the read.
+ * Deliberately not an IllegalStateException: callers that treat those as business
+ * refusals (insufficient funds, missing account) must not swallow a lost race.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
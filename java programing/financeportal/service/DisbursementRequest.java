@@ -0,0 +1,18 @@
+package com.financeportal.service;
+
+/**
+ * One item of a bulk loan approval: the loan to disburse and the account to credit.
+ */
+public final class DisbursementRequest {
+    private final int loanId;
+    private final int accountId;
+
+    public DisbursementRequest(int loanId, int accountId) {
+        this.loanId = loanId;
+        this.accountId = accountId;
+    }
+
+    public int getLoanId() { return loanId; }
+
+    public int getAccountId() { return accountId; }
+}
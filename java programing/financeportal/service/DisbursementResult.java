@@ -0,0 +1,48 @@
+package com.financeportal.service;
+
+/**
+ * Outcome of one DisbursementRequest.
+ *
+ * SUCCESS  - loan disbursed; transactionId is the LOAN_DISBURSEMENT credit
+ * REJECTED - failed validation (unknown loan/account, wrong owner, wrong status); nothing was written
+ * FAILED   - its chunk could not be written (database error); nothing was written
+ */
+public final class DisbursementResult {
+    public static final String SUCCESS = "SUCCESS";
+    public static final String REJECTED = "REJECTED";
+    public static final String FAILED = "FAILED";
+
+    private final int loanId;
+    private final int accountId;
+    private final String status;
+    private final String message;
+    private final int transactionId;
+
+    DisbursementResult(int loanId, int accountId, String status, String message, int transactionId) {
+        this.loanId = loanId;
+        this.accountId = accountId;
+        this.status = status;
+        this.message = message;
+        this.transactionId = transactionId;
+    }
+
+    static DisbursementResult rejected(DisbursementRequest r, String message) {
+        return new DisbursementResult(r.getLoanId(), r.getAccountId(), REJECTED, message, 0);
+    }
+
+    static DisbursementResult failed(DisbursementRequest r, String message) {
+        return new DisbursementResult(r.getLoanId(), r.getAccountId(), FAILED, message, 0);
+    }
+
+    public int getLoanId() { return loanId; }
+
+    public int getAccountId() { return accountId; }
+
+    public String getStatus() { return status; }
+
+    public String getMessage() { return message; }
+
+    public int getTransactionId() { return transactionId; }
+
+    public boolean isSuccess() { return SUCCESS.equals(status); }
+}
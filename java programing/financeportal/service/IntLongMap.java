@@ -0,0 +1,80 @@
+package com.financeportal.service;
+
+/**
+ * Open-addressing int -> long hash map (linear probing, no boxing).
+ *
+ * Keys must be positive (account ids); 0 marks an empty slot. Not thread-safe -
+ * LedgerEngine guards it with its own lock. Entries are never removed.
+ */
+final class IntLongMap {
+
+    /** Returned by get(...) when the key is absent. */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+    IntLongMap(int expectedSize) {
+        int cap = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new int[cap];
+        values = new long[cap];
+        mask = cap - 1;
+    }
+
+    long get(int key) {
+        int i = slot(key);
+        while (true) {
+            int k = keys[i];
+            if (k == key) return values[i];
+            if (k == 0) return MISSING;
+            i = (i + 1) & mask;
+        }
+    }
+
+    void put(int key, long value) {
+        if (key <= 0) throw new IllegalArgumentException("Key must be positive");
+        int i = slot(key);
+        while (true) {
+            int k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                // keep the load factor at or below 0.5
+                if (++size * 2 > keys.length) grow();
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing spreads sequential ids across the table
+        return (key * 0x9E3779B9) >>> 1 & mask;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[oldKeys.length << 1];
+        values = new long[oldKeys.length << 1];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k == 0) continue;
+            int i = slot(k);
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+}
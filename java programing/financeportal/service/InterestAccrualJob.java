@@ -0,0 +1,186 @@
+package com.financeportal.service;
+
+import com.financeportal.dao.DBConnection;
+import com.financeportal.dao.LoanAccrualDAO;
+import com.financeportal.model.Loan;
+import com.financeportal.model.LoanAccrual;
+import com.financeportal.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * End-of-day interest accrual over all disbursed loans.
+ *
+ * Holder ids are cut into fixed partitions of service.accrual.partitionHolders ids (default 5000):
+ * partition p covers [p x partitionHolders, (p + 1) x partitionHolders), independent of which holders
+ * have disbursed loans today.
+ * Partitions run on a ForkJoinPool (service.accrual.parallelism, default cores capped by the
+ * connection pool): each one streams its loans, computes the day's accrual in fixed point
+ * (outstanding principal x annualRate / 365, actual/365, 4 decimals) and writes all postings plus its
+ * checkpoint in one transaction (LoanAccrualDAO). A rerun for the same date skips the holder ranges
+ * already checkpointed, so a crash resumes where it stopped. A failed partition does not stop the others.
+ *
+ * Run nightly from the scheduler: java com.financeportal.service.InterestAccrualJob [yyyy-MM-dd]
+ */
+public class InterestAccrualJob {
+
+    // accrual amounts are kept with 4 decimals: cents x 100
+    private static final int AMOUNT_SCALE = 4;
+
+    private final LoanAccrualDAO accrualDAO;
+    private final int partitionHolders;
+    private final int parallelism;
+
+    public InterestAccrualJob() {
+        this(DBConnection.getIntProperty("service.accrual.partitionHolders", 5000),
+                DBConnection.getIntProperty("service.accrual.parallelism",
+                        Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), DBConnection.getMaxPoolSize() - 1))));
+    }
+
+    public InterestAccrualJob(int partitionHolders, int parallelism) {
+        if (partitionHolders < 1) throw new IllegalArgumentException("partitionHolders must be >= 1");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+        this.accrualDAO = new LoanAccrualDAO();
+        this.partitionHolders = partitionHolders;
+        this.parallelism = parallelism;
+    }
+
+    /** Outcome of one run. */
+    public static final class Summary {
+        private final int partitions;
+        private final int skipped;
+        private final int failed;
+        private final long loans;
+        private final BigDecimal totalInterest;
+        private final long elapsedMillis;
+
+        Summary(int partitions, int skipped, int failed, long loans, BigDecimal totalInterest, long elapsedMillis) {
+            this.partitions = partitions;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.loans = loans;
+            this.totalInterest = totalInterest;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getPartitions() { return partitions; }
+        public int getSkipped() { return skipped; }
+        public int getFailed() { return failed; }
+        public long getLoans() { return loans; }
+        public BigDecimal getTotalInterest() { return totalInterest; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return "partitions=" + partitions + " skipped=" + skipped + " failed=" + failed
+                    + " loans=" + loans + " interest=" + totalInterest + " elapsed=" + elapsedMillis + "ms";
+        }
+    }
+
+    /**
+     * Accrue one day of interest for every disbursed loan (idempotent per date).
+     */
+    public Summary run(LocalDate accrualDate) throws SQLException {
+        long start = System.currentTimeMillis();
+        int[] range = accrualDAO.holderIdRange();
+        if (range == null) return new Summary(0, 0, 0, 0, BigDecimal.ZERO.setScale(AMOUNT_SCALE), 0);
+
+        // partition numbers are absolute, so a rerun cuts the same ranges whatever MIN(holder) is now
+        int firstPartition = range[0] / partitionHolders;
+        int lastPartition = range[1] / partitionHolders;
+        int partitions = lastPartition - firstPartition + 1;
+        Map<Integer, Integer> done = accrualDAO.completedRanges(accrualDate);
+        AtomicLong loans = new AtomicLong();
+        AtomicLong units = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+        int skipped = 0;
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int p = firstPartition; p <= lastPartition; p++) {
+            int partitionNo = p;
+            int from = (int) Math.min(Integer.MAX_VALUE, (long) p * partitionHolders);
+            int to = (int) Math.min(Integer.MAX_VALUE, (long) from + partitionHolders);
+            if (Integer.valueOf(to).equals(done.get(from))) {
+                skipped++;
+                continue;
+            }
+            tasks.add(() -> {
+                try {
+                    long[] result = accruePartition(accrualDate, partitionNo, from, to);
+                    loans.addAndGet(result[0]);
+                    units.addAndGet(result[1]);
+                } catch (SQLException | RuntimeException ex) {
+                    failed.incrementAndGet();
+                    System.err.println("Accrual partition " + partitionNo + " [" + from + ", " + to + ") failed: " + ex.getMessage());
+                }
+                return null;
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during interest accrual", e);
+        } catch (ExecutionException e) {
+            throw new SQLException("Interest accrual task failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return new Summary(partitions, skipped, failed.get(), loans.get(),
+                BigDecimal.valueOf(units.get(), AMOUNT_SCALE), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return {loans accrued, total amount in 1e-4 units}
+     */
+    private long[] accruePartition(LocalDate accrualDate, int partitionNo, int from, int to) throws SQLException {
+        List<LoanAccrual> accruals = new ArrayList<>();
+        long total = 0;
+        // read the partition fully first, so each task holds one connection at a time
+        try (Stream<Loan> loans = accrualDAO.streamPartition(from, to)) {
+            for (Loan loan : (Iterable<Loan>) loans::iterator) {
+                long amount = dailyAccrualUnits(loan);
+                if (amount == 0) continue;
+                LoanAccrual a = new LoanAccrual();
+                a.setLoanID(loan.getLoanID());
+                a.setAccrualDate(accrualDate);
+                a.setAmount(BigDecimal.valueOf(amount, AMOUNT_SCALE));
+                accruals.add(a);
+                total += amount;
+            }
+        }
+        accrualDAO.writePartition(accrualDate, partitionNo, from, to, accruals, BigDecimal.valueOf(total, AMOUNT_SCALE));
+        return new long[]{accruals.size(), total};
+    }
+
+    /**
+     * One day's interest in 1e-4 currency units: principal x annualRate / 365.
+     */
+    static long dailyAccrualUnits(Loan loan) {
+        if (loan.getPrincipal() == null || loan.getInterestRate() == null) return 0;
+        long principalUnits = Math.multiplyExact(FixedPoint.toCents(loan.getPrincipal()), 100L);
+        long annualRateNanos = FixedPoint.rateToNanos(loan.getInterestRate(), 1);
+        return FixedPoint.mulDivRound(principalUnits, annualRateNanos, FixedPoint.RATE_SCALE * 365);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LocalDate date = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now().minusDays(1);
+        Summary s = new InterestAccrualJob().run(date);
+        System.out.println("Interest accrual for " + date + ": " + s);
+        System.exit(s.getFailed() == 0 ? 0 : 1);
+    }
+}
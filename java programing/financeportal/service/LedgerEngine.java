@@ -0,0 +1,421 @@
+package com.financeportal.service;
+
+import com.financeportal.dao.AccountDAO;
+import com.financeportal.dao.DBConnection;
+import com.financeportal.dao.LedgerDAO;
+import com.financeportal.dao.TransactionDAO;
+import com.financeportal.model.Account;
+import com.financeportal.model.Transaction;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional in-memory ledger for transfers (event sourcing).
+ *
+ * Account balances live in memory as long cents. A transfer is checked against the in-memory
+ * balance, appended to a memory-mapped journal (LedgerJournal) and only then applied and
+ * acknowledged - no database round trip is on the request path. A background projector writes
+ * the postings into the account and transaction tables in batches, together with the journal
+ * sequence number it reached (LedgerDAO), all in one database transaction.
+ *
+ * On start the engine loads balances and that checkpoint from one database snapshot, then replays
+ * only the journal records after the checkpoint and queues them for projection again.
+ *
+ * Settings (database.properties):
+ *   ledger.journal.path           (default ledger.journal)
+ *   ledger.journal.segmentBytes   (default 67108864)
+ *   ledger.journal.forceEachWrite (default false; true flushes every record to disk)
+ *   ledger.projection.batchSize   (default 500)
+ *
+ * While the engine is running it owns the balances of the accounts it has loaded. Flows that still
+ * write account.balance themselves (bulk and optimistic transfers, TransferBatcher, loan disbursement
+ * and repayment) take a Hold first: debits are checked against and taken from the in-memory balance
+ * before their database transaction, credits are added once it has committed. New accounts are
+ * loaded from the database on first use. The projector applies its deltas with the guarded update;
+ * if the database refuses one (the balance would go negative), projection halts, an alert is
+ * logged and new transfers are refused until the engine is restarted.
+ * The journal is append-only; compaction is not implemented.
+ */
+public final class LedgerEngine implements AutoCloseable {
+
+    /** The running engine that direct database flows report to, or null. */
+    private static volatile LedgerEngine active;
+
+    private final LedgerJournal journal;
+    private final int projectionBatchSize;
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final LedgerDAO ledgerDAO = new LedgerDAO();
+
+    private final IntLongMap balances = new IntLongMap(1024);
+    private final LinkedBlockingQueue<LedgerJournal.Entry> pending = new LinkedBlockingQueue<>();
+    private final Thread projector;
+    private volatile boolean running;
+    private volatile long projectedSeq;
+    private volatile String haltReason;
+
+    public LedgerEngine(Path journalPath, int segmentBytes, boolean forceEachWrite, int projectionBatchSize) throws IOException {
+        if (projectionBatchSize < 1) throw new IllegalArgumentException("projectionBatchSize must be >= 1");
+        this.journal = new LedgerJournal(journalPath, segmentBytes, forceEachWrite);
+        this.projectionBatchSize = projectionBatchSize;
+        this.projector = new Thread(this::projectLoop, "ledger-projector");
+        this.projector.setDaemon(true);
+    }
+
+    /**
+     * Create and start an engine configured from database.properties.
+     */
+    public static LedgerEngine open() throws IOException, SQLException {
+        LedgerEngine engine = new LedgerEngine(
+                Paths.get(DBConnection.getProperty("ledger.journal.path", "ledger.journal")),
+                DBConnection.getIntProperty("ledger.journal.segmentBytes", 64 * 1024 * 1024),
+                Boolean.parseBoolean(DBConnection.getProperty("ledger.journal.forceEachWrite", "false")),
+                DBConnection.getIntProperty("ledger.projection.batchSize", 500));
+        engine.start();
+        return engine;
+    }
+
+    /**
+     * Load balances, replay the journal past the projection checkpoint and start the projector.
+     */
+    public synchronized void start() throws IOException, SQLException {
+        if (running) throw new IllegalStateException("Ledger already started");
+        long checkpoint = ledgerDAO.loadSnapshot(balances::put);
+        projectedSeq = checkpoint;
+        journal.replay(e -> {
+            // records up to the checkpoint are already in the loaded balances
+            if (e.seq <= checkpoint) return;
+            applyInMemory(e);
+            pending.add(e);
+        });
+        running = true;
+        projector.start();
+        synchronized (LedgerEngine.class) {
+            active = this;
+        }
+    }
+
+    /**
+     * Current balance of an account as held by the ledger.
+     * @throws IllegalArgumentException if the account does not exist
+     */
+    public BigDecimal getBalance(int accountId) throws SQLException {
+        return BigDecimal.valueOf(balanceCents(accountId), 2);
+    }
+
+    /**
+     * Journal and apply a transfer. Returns the journal sequence number once the record is written.
+     * @throws IllegalStateException on insufficient funds
+     */
+    public long transfer(int fromAccountId, int toAccountId, BigDecimal amount) throws SQLException, IOException {
+        TransactionService.validateTransfer(fromAccountId, toAccountId, amount);
+        checkAccepting();
+        long cents = toCents(amount);
+        // make sure both accounts are resident before taking the lock
+        balanceCents(fromAccountId);
+        balanceCents(toAccountId);
+
+        LedgerJournal.Entry e;
+        synchronized (balances) {
+            if (balances.get(fromAccountId) < cents) throw new IllegalStateException("Insufficient funds");
+            e = journal.append(fromAccountId, toAccountId, cents, System.currentTimeMillis());
+            applyInMemory(e);
+        }
+        pending.add(e);
+        return e.seq;
+    }
+
+    /** Highest journal sequence number written. */
+    public long getJournaledSeq() {
+        return journal.lastSeq();
+    }
+
+    /** Highest journal sequence number projected into the database. */
+    public long getProjectedSeq() {
+        return projectedSeq;
+    }
+
+    /** Journal records not yet projected. */
+    public long getProjectionLag() {
+        return getJournaledSeq() - projectedSeq;
+    }
+
+    /** Why projection stopped, or null while it is healthy. */
+    public String getHaltReason() {
+        return haltReason;
+    }
+
+    /** Number of accounts resident in memory. */
+    public int getAccountCount() {
+        synchronized (balances) {
+            return balances.size();
+        }
+    }
+
+    /**
+     * Reserve a balance change that the caller is about to write to the database itself.
+     * Returns a no-op hold when no engine is running.
+     *
+     * @param deltas signed amount per account (negative to debit)
+     * @throws IllegalStateException if a debit exceeds the in-memory balance
+     */
+    static Hold hold(Map<Integer, BigDecimal> deltas) throws SQLException {
+        LedgerEngine engine = active;
+        if (engine == null || deltas == null || deltas.isEmpty()) return Hold.NONE;
+        return engine.reserve(deltas);
+    }
+
+    /** hold() for a single account. */
+    static Hold hold(int accountId, BigDecimal delta) throws SQLException {
+        if (active == null) return Hold.NONE;
+        return hold(Map.of(accountId, delta));
+    }
+
+    /** hold() for a transfer between two accounts. */
+    static Hold holdTransfer(int fromAccountId, int toAccountId, BigDecimal amount) throws SQLException {
+        if (active == null) return Hold.NONE;
+        Map<Integer, BigDecimal> deltas = new TreeMap<>();
+        deltas.merge(fromAccountId, amount.negate(), BigDecimal::add);
+        deltas.merge(toAccountId, amount, BigDecimal::add);
+        return hold(deltas);
+    }
+
+    private Hold reserve(Map<Integer, BigDecimal> deltas) throws SQLException {
+        checkAccepting();
+        int[] ids = new int[deltas.size()];
+        long[] cents = new long[deltas.size()];
+        int k = 0;
+        for (Map.Entry<Integer, BigDecimal> e : deltas.entrySet()) {
+            ids[k] = e.getKey();
+            cents[k] = toCents(e.getValue());
+            // resident before the caller's write, so a later lazy load cannot count it twice
+            residentCents(ids[k]);
+            k++;
+        }
+        synchronized (balances) {
+            for (int i = 0; i < ids.length; i++) {
+                long balance = balances.get(ids[i]);
+                // unknown accounts are left to the caller's own not-found check
+                if (cents[i] < 0 && balance != IntLongMap.MISSING && balance + cents[i] < 0)
+                    throw new IllegalStateException("Insufficient funds");
+            }
+            adjust(ids, cents, true);
+        }
+        return new Hold(this, ids, cents);
+    }
+
+    /** Apply the debits (debits == true) or the credits of a hold to resident accounts. */
+    private void adjust(int[] ids, long[] cents, boolean debits) {
+        synchronized (balances) {
+            for (int i = 0; i < ids.length; i++) {
+                if ((cents[i] < 0) != debits) continue;
+                long balance = balances.get(ids[i]);
+                if (balance != IntLongMap.MISSING) balances.put(ids[i], balance + cents[i]);
+            }
+        }
+    }
+
+    private void checkAccepting() {
+        if (!running) throw new IllegalStateException("Ledger is not running");
+        String halted = haltReason;
+        if (halted != null) throw new IllegalStateException("Ledger projection halted: " + halted);
+    }
+
+    private long balanceCents(int accountId) throws SQLException {
+        long cents = residentCents(accountId);
+        if (cents == IntLongMap.MISSING) throw new IllegalArgumentException("Account not found: " + accountId);
+        return cents;
+    }
+
+    /** In-memory balance, loading the account on first use; MISSING if it does not exist. */
+    private long residentCents(int accountId) throws SQLException {
+        long cents;
+        synchronized (balances) {
+            cents = balances.get(accountId);
+        }
+        if (cents != IntLongMap.MISSING) return cents;
+
+        // opened after start(): it has no journal records yet, so the database balance is current
+        Account a = accountDAO.getById(accountId);
+        if (a == null) return IntLongMap.MISSING;
+        synchronized (balances) {
+            cents = balances.get(accountId);
+            if (cents == IntLongMap.MISSING) {
+                cents = toCents(a.getBalance());
+                balances.put(accountId, cents);
+            }
+        }
+        return cents;
+    }
+
+    private void applyInMemory(LedgerJournal.Entry e) {
+        synchronized (balances) {
+            // a replayed record can name an account missing from the snapshot; MISSING must not
+            // become a balance (Long.MIN_VALUE + amount), the row is left to the projector's guard
+            if (e.fromAccountId > 0) {
+                long balance = balances.get(e.fromAccountId);
+                if (balance != IntLongMap.MISSING) balances.put(e.fromAccountId, balance - e.amountCents);
+            }
+            if (e.toAccountId > 0) {
+                long balance = balances.get(e.toAccountId);
+                if (balance != IntLongMap.MISSING) balances.put(e.toAccountId, balance + e.amountCents);
+            }
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount.stripTrailingZeros().scale() > 2)
+            throw new IllegalArgumentException("Amount cannot have more than 2 decimal places");
+        return amount.setScale(2).movePointRight(2).longValueExact();
+    }
+
+    private void projectLoop() {
+        List<LedgerJournal.Entry> batch = new ArrayList<>(projectionBatchSize);
+        while (running || !pending.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    LedgerJournal.Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    pending.drainTo(batch, projectionBatchSize - 1);
+                }
+                project(batch);
+                projectedSeq = batch.get(batch.size() - 1).seq;
+                batch.clear();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException | RuntimeException ex) {
+                if (haltReason == null) System.err.println("Ledger projection failed, will retry: " + ex.getMessage());
+                // on shutdown the journal keeps the records; the next start() projects them
+                if (!running) return;
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write one batch of postings: netted balance deltas, the DEBIT/CREDIT rows and the checkpoint.
+     */
+    private void project(List<LedgerJournal.Entry> batch) throws SQLException {
+        Map<Integer, BigDecimal> net = new TreeMap<>();
+        List<Transaction> rows = new ArrayList<>(batch.size() * 2);
+        for (LedgerJournal.Entry e : batch) {
+            BigDecimal amount = BigDecimal.valueOf(e.amountCents, 2);
+            LocalDateTime date = new Timestamp(e.epochMillis).toLocalDateTime();
+            // order numbers derive from the sequence number, so a retried batch produces the same rows
+            String orderNumber = "LG-" + e.seq;
+            if (e.fromAccountId > 0) {
+                net.merge(e.fromAccountId, amount.negate(), BigDecimal::add);
+                rows.add(TransactionService.transferRow(e.fromAccountId, "DEBIT", amount, date, orderNumber + "-D",
+                        "Transfer to account " + e.toAccountId));
+            }
+            if (e.toAccountId > 0) {
+                net.merge(e.toAccountId, amount, BigDecimal::add);
+                rows.add(TransactionService.transferRow(e.toAccountId, "CREDIT", amount, date, orderNumber + "-C",
+                        "Transfer from account " + e.fromAccountId));
+            }
+        }
+
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+
+                // guarded: the ledger must never take a real balance below zero
+                List<Integer> rejected = accountDAO.applyDeltaBatch(net, conn);
+                if (!rejected.isEmpty()) {
+                    String reason = "database rejected ledger deltas for accounts " + rejected
+                            + " (missing or balance would go negative) in records up to seq " + batch.get(batch.size() - 1).seq;
+                    if (haltReason == null) System.err.println("ALERT: ledger projection halted: " + reason);
+                    haltReason = reason;
+                    throw new SQLException("Ledger projection halted: " + reason);
+                }
+                if (transactionDAO.createBatch(rows, conn) != rows.size())
+                    throw new SQLException("Failed to create ledger transactions");
+                if (!ledgerDAO.updateLastSeq(batch.get(batch.size() - 1).seq, conn))
+                    throw new SQLException("ledger_projection row missing");
+
+                conn.commit();
+                // the operator fixed the balance and the batch went through
+                haltReason = null;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting transfers, project what is queued (one attempt if the database is down)
+     * and close the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        synchronized (LedgerEngine.class) {
+            if (active == this) active = null;
+        }
+        try {
+            projector.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * A balance change written to the database outside the ledger (see hold()).
+     * Call confirm() after the database transaction commits; close() without confirm() gives the
+     * reserved debits back. Use with try-with-resources.
+     */
+    static final class Hold implements AutoCloseable {
+        static final Hold NONE = new Hold(null, new int[0], new long[0]);
+
+        private final LedgerEngine engine;
+        private final int[] accountIds;
+        private final long[] cents;
+        private boolean settled;
+
+        private Hold(LedgerEngine engine, int[] accountIds, long[] cents) {
+            this.engine = engine;
+            this.accountIds = accountIds;
+            this.cents = cents;
+        }
+
+        /** The database change committed: add the credits. */
+        void confirm() {
+            if (engine == null || settled) return;
+            settled = true;
+            engine.adjust(accountIds, cents, false);
+        }
+
+        @Override
+        public void close() {
+            if (engine == null || settled) return;
+            settled = true;
+            long[] refund = new long[cents.length];
+            for (int i = 0; i < cents.length; i++) refund[i] = cents[i] < 0 ? -cents[i] : 0;
+            engine.adjust(accountIds, refund, false);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.financeportal.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of ledger postings.
+ *
+ * Fixed 40-byte records: magic(4) seq(8) from(4) to(4) amountCents(8) epochMillis(8) crc32(4).
+ * The file is mapped in segments of segmentBytes and grows one segment at a time. A record is
+ * visible once it is written to the mapping (it survives a process crash via the page cache);
+ * with forceEachWrite it is also flushed to the device before append() returns.
+ *
+ * Replay stops at the first record whose magic or checksum does not match, which is where a
+ * torn write from a crash would be, and clears everything after it; the next append overwrites it.
+ */
+final class LedgerJournal implements AutoCloseable {
+
+    static final int RECORD_BYTES = 40;
+    private static final int MAGIC = 0x4C454447; // "LEDG"
+
+    /** One journal record. from/to of 0 means an external party (no account). */
+    static final class Entry {
+        final long seq;
+        final int fromAccountId;
+        final int toAccountId;
+        final long amountCents;
+        final long epochMillis;
+
+        Entry(long seq, int fromAccountId, int toAccountId, long amountCents, long epochMillis) {
+            this.seq = seq;
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+            this.amountCents = amountCents;
+            this.epochMillis = epochMillis;
+        }
+    }
+
+    private final FileChannel channel;
+    private final int segmentBytes;
+    private final boolean forceEachWrite;
+    private final CRC32 crc = new CRC32();
+
+    private MappedByteBuffer segment;
+    private long segmentStart = -1;
+    private long position;
+    private long nextSeq = 1;
+
+    LedgerJournal(Path path, int segmentBytes, boolean forceEachWrite) throws IOException {
+        if (segmentBytes < RECORD_BYTES) throw new IllegalArgumentException("segmentBytes must be >= " + RECORD_BYTES);
+        // records never straddle two segments
+        this.segmentBytes = segmentBytes - segmentBytes % RECORD_BYTES;
+        this.forceEachWrite = forceEachWrite;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Read every intact record from the start of the file and position the writer after the last one.
+     * Must be called once, before the first append.
+     * @return sequence number of the last intact record (0 if the journal is empty)
+     */
+    synchronized long replay(Consumer<Entry> sink) throws IOException {
+        long pos = 0;
+        long lastSeq = 0;
+        while (true) {
+            mapSegmentFor(pos);
+            int off = (int) (pos - segmentStart);
+            if (segment.getInt(off) != MAGIC || segment.getInt(off + 36) != checksum(off)) break;
+            Entry e = new Entry(segment.getLong(off + 4), segment.getInt(off + 12), segment.getInt(off + 16),
+                    segment.getLong(off + 20), segment.getLong(off + 28));
+            sink.accept(e);
+            lastSeq = e.seq;
+            pos += RECORD_BYTES;
+        }
+        // wipe whatever follows the last intact record, so stale records never reappear behind new ones
+        for (int off = (int) (pos - segmentStart); off < segmentBytes; off++) segment.put(off, (byte) 0);
+        if (channel.size() > segmentStart + segmentBytes) channel.truncate(segmentStart + segmentBytes);
+        position = pos;
+        nextSeq = lastSeq + 1;
+        return lastSeq;
+    }
+
+    /**
+     * Append one record and return it with its assigned sequence number.
+     */
+    synchronized Entry append(int fromAccountId, int toAccountId, long amountCents, long epochMillis) throws IOException {
+        mapSegmentFor(position);
+        int off = (int) (position - segmentStart);
+        Entry e = new Entry(nextSeq, fromAccountId, toAccountId, amountCents, epochMillis);
+        segment.putLong(off + 4, e.seq);
+        segment.putInt(off + 12, fromAccountId);
+        segment.putInt(off + 16, toAccountId);
+        segment.putLong(off + 20, amountCents);
+        segment.putLong(off + 28, epochMillis);
+        segment.putInt(off + 36, checksum(off));
+        // magic last: a record missing its magic is treated as never written
+        segment.putInt(off, MAGIC);
+        if (forceEachWrite) segment.force(off, RECORD_BYTES);
+        position += RECORD_BYTES;
+        nextSeq++;
+        return e;
+    }
+
+    synchronized long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    private void mapSegmentFor(long pos) throws IOException {
+        long start = pos - pos % segmentBytes;
+        if (start == segmentStart) return;
+        if (segment != null) segment.force();
+        // mapping past the end of the file grows it
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, segmentBytes);
+        segmentStart = start;
+    }
+
+    private int checksum(int off) {
+        crc.reset();
+        crc.update(segment.slice(off + 4, 32));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) segment.force();
+        channel.close();
+    }
+}
@@ -2,37 +2,64 @@ package com.financeportal.service;
 
 import com.financeportal.dao.AccountDAO;
 import com.financeportal.dao.LoanDAO;
+import com.financeportal.dao.LoanRepaymentDAO;
+import com.financeportal.dao.LoanScheduleDAO;
 import com.financeportal.dao.TransactionDAO;
 import com.financeportal.dao.DBConnection;
 import com.financeportal.model.Loan;
+import com.financeportal.model.LoanRepayment;
 import com.financeportal.model.Transaction;
 import com.financeportal.model.Account;
+import com.financeportal.model.AmortizationSchedule;
+import com.financeportal.util.FixedPoint;
+import com.financeportal.util.OrderNumberGenerator;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * LoanService - basic loan flows:
  *  - applyForLoan: create loan application (status = APPLIED)
  *  - approveAndDisburse: mark loan APPROVED/DISBURSED and create a credit transaction to an account (atomic)
- *  - repayLoan: create a DEBIT transaction on the specified account and optionally close the loan (naive)
+ *  - approveAndDisburseBatch: the same for many loans, in chunked set-based transactions
+ *  - repayLoan: debit an account, record the repayment (loan_repayment) and reduce the loan's
+ *    outstanding principal/interest in one transaction; closes the loan when nothing is left
+ *  - getSchedule / quotePayoff / allocateRepayment: amortization schedule lookups (AmortizationEngine)
+ *  - getOutstandingBalance / getRepayments: materialized balance and repayment history
  *
  * NOTES:
- *  - This implementation is intentionally minimal. In production you'd track repayments,
- *    interest accrual, amortization schedule, outstanding principal, and repayments table.
+ *  - outstanding_principal/outstanding_interest on the loan row are the source of truth for what is
+ *    owed; they are never recomputed from the repayment history once set. Loans disbursed before
+ *    the columns existed derive them once from their LOAN_REPAYMENT debits, on the first repayment.
  */
 public class LoanService {
 
+    /** Loans disbursed per transaction by approveAndDisburseBatch (service.loan.disbursementChunkSize). */
+    private static final int DISBURSEMENT_CHUNK_SIZE =
+            Math.max(1, DBConnection.getIntProperty("service.loan.disbursementChunkSize", 200));
+
     private final LoanDAO loanDAO;
     private final TransactionDAO transactionDAO;
     private final AccountDAO accountDAO;
+    private final LoanScheduleDAO loanScheduleDAO;
+    private final LoanRepaymentDAO loanRepaymentDAO;
 
     public LoanService() {
         this.loanDAO = new LoanDAO();
         this.transactionDAO = new TransactionDAO();
         this.accountDAO = new AccountDAO();
+        this.loanScheduleDAO = new LoanScheduleDAO();
+        this.loanRepaymentDAO = new LoanRepaymentDAO();
     }
 
     /**
@@ -73,37 +100,39 @@ public class LoanService {
         // Basic ownership check: account belongs to loan applicant
         if (account.getAccountHolderID() != loan.getAccountHolderID())
             throw new IllegalStateException("Target account does not belong to the loan applicant");
+        if (!isDisbursable(loan))
+            throw new IllegalStateException("Loan cannot be disbursed in status " + loan.getStatus());
 
-        try (Connection conn = DBConnection.getConnection()) {
+        try (LedgerEngine.Hold hold = LedgerEngine.hold(accountId, loan.getPrincipal());
+             Connection conn = DBConnection.getConnection()) {
             try {
                 conn.setAutoCommit(false);
 
-                // 1) Update loan status to APPROVED then DISBURSED (we can do both or single step)
-                boolean updated = loanDAO.updateStatus(loanId, "DISBURSED");
-                if (!updated) throw new SQLException("Failed to update loan status");
+                // 1) Mark the loan DISBURSED; it owes the full principal and the schedule's interest
+                //    (the schedule runs from the disbursement date)
+                //    guarded on the status, so a concurrent disbursement of the same loan loses here
+                AmortizationSchedule schedule = AmortizationEngine.build(loan, LocalDate.now());
+                loan.setOutstandingPrincipal(loan.getPrincipal());
+                loan.setOutstandingInterest(FixedPoint.fromCents(schedule.getInterestTotalCents()));
+                if (!loanDAO.markDisbursedBatch(Collections.singletonList(loan), conn).isEmpty())
+                    throw new IllegalStateException("Loan was disbursed concurrently: " + loanId);
 
                 // 2) Create a CREDIT transaction that increases account balance by loan.principal
-                Transaction tx = new Transaction();
-                tx.setAccountID(accountId);
-                tx.setType("CREDIT");
-                tx.setAmount(loan.getPrincipal());
-                tx.setDate(LocalDateTime.now());
-                tx.setOrderNumber("LN-DSB-" + System.currentTimeMillis());
-                tx.setStatus("COMPLETED");
-                tx.setPaymentMethod("LOAN_DISBURSEMENT");
-                tx.setNotes("Loan disbursement for loanId=" + loanId);
+                Transaction tx = disbursementRow(loan, accountId, LocalDateTime.now());
 
-                // Update account balance using connection-aware AccountDAO
-                BigDecimal current = account.getBalance() == null ? BigDecimal.ZERO : account.getBalance();
-                BigDecimal newBalance = current.add(loan.getPrincipal());
-                boolean balanceUpdated = accountDAO.updateBalance(accountId, newBalance, conn);
+                // Credit the account in one statement on the transaction's connection
+                boolean balanceUpdated = accountDAO.applyDelta(accountId, loan.getPrincipal(), conn);
                 if (!balanceUpdated) throw new SQLException("Failed to update account balance for disbursement");
 
                 // Insert transaction using same connection
                 int txId = transactionDAO.create(tx, conn);
                 if (txId <= 0) throw new SQLException("Failed to create disbursement transaction");
 
+                loanScheduleDAO.save(schedule, conn);
+
                 conn.commit();
+                hold.confirm();
+                loanScheduleDAO.invalidate(Collections.singletonList(loanId));
                 return txId;
             } catch (Exception ex) {
                 conn.rollback();
@@ -114,11 +143,155 @@ public class LoanService {
         }
     }
 
+    /**
+     * Approve and disburse many loans. Items are validated, then written in chunks of
+     * service.loan.disbursementChunkSize; each chunk is one UnitOfWork that locks its loans, then its
+     * target accounts, with set-based IN queries, checks ownership and status against the locked rows, and
+     * writes the loan updates, the netted account credits, the LOAN_DISBURSEMENT transactions and the
+     * schedules as JDBC batches. A chunk that cannot be written marks its items FAILED and does not
+     * stop the remaining chunks.
+     *
+     * @return one result per request, in request order
+     */
+    public List<DisbursementResult> approveAndDisburseBatch(List<DisbursementRequest> requests) {
+        List<DisbursementResult> results = new ArrayList<>();
+        if (requests == null || requests.isEmpty()) return results;
+        DisbursementResult[] byIndex = new DisbursementResult[requests.size()];
+
+        List<Integer> pending = new ArrayList<>();
+        Set<Integer> seenLoans = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            DisbursementRequest r = requests.get(i);
+            if (r == null) throw new IllegalArgumentException("Disbursement request cannot be null");
+            if (r.getLoanId() <= 0) byIndex[i] = DisbursementResult.rejected(r, "loanId required");
+            else if (r.getAccountId() <= 0) byIndex[i] = DisbursementResult.rejected(r, "accountId required");
+            else if (!seenLoans.add(r.getLoanId())) byIndex[i] = DisbursementResult.rejected(r, "Duplicate loan in batch");
+            else pending.add(i);
+        }
+
+        for (int from = 0; from < pending.size(); from += DISBURSEMENT_CHUNK_SIZE) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + DISBURSEMENT_CHUNK_SIZE, pending.size()));
+            try {
+                Map<Integer, DisbursementResult> written = disburseChunk(requests, chunk);
+                for (Integer i : chunk) byIndex[i] = written.get(i);
+            } catch (SQLException | RuntimeException ex) {
+                for (Integer i : chunk) byIndex[i] = DisbursementResult.failed(requests.get(i), ex.getMessage());
+            }
+        }
+
+        for (DisbursementResult r : byIndex) results.add(r);
+        return results;
+    }
+
+    /**
+     * One chunk of approveAndDisburseBatch in one transaction.
+     * @return result per request index
+     */
+    private Map<Integer, DisbursementResult> disburseChunk(List<DisbursementRequest> requests, List<Integer> chunk)
+            throws SQLException {
+        Set<Integer> accountIds = new HashSet<>();
+        List<Integer> loanIds = new ArrayList<>(chunk.size());
+        for (Integer i : chunk) {
+            accountIds.add(requests.get(i).getAccountId());
+            loanIds.add(requests.get(i).getLoanId());
+        }
+
+        // ledger hold for the credits of the attempt that commits
+        LedgerEngine.Hold[] hold = {LedgerEngine.Hold.NONE};
+        try {
+            // loans are locked before accounts, the same order as approveAndDisburse and repayLoan
+            Map<Integer, DisbursementResult> written = UnitOfWork.execute(
+                    conn -> loanDAO.lockForUpdate(loanIds, conn), accountIds, (conn, loans, accounts) -> {
+                // rebuilt on every attempt: a retried unit starts from scratch
+                hold[0].close();
+                Map<Integer, DisbursementResult> out = new TreeMap<>();
+                LocalDateTime now = LocalDateTime.now();
+
+                List<Integer> accepted = new ArrayList<>();
+                List<Loan> disbursed = new ArrayList<>();
+                List<AmortizationSchedule> schedules = new ArrayList<>();
+                List<Transaction> rows = new ArrayList<>();
+                Map<Integer, BigDecimal> credits = new TreeMap<>();
+                for (Integer i : chunk) {
+                    DisbursementRequest r = requests.get(i);
+                    Loan loan = loans.get(r.getLoanId());
+                    Account account = accounts.get(r.getAccountId());
+                    String reason = null;
+                    if (loan == null) reason = "Loan not found: " + r.getLoanId();
+                    else if (account == null) reason = "Target account not found: " + r.getAccountId();
+                    else if (account.getAccountHolderID() != loan.getAccountHolderID())
+                        reason = "Target account does not belong to the loan applicant";
+                    else if (!isDisbursable(loan)) reason = "Loan cannot be disbursed in status " + loan.getStatus();
+                    else if (loan.getPrincipal() == null || loan.getPrincipal().signum() <= 0)
+                        reason = "Loan principal must be positive";
+                    if (reason != null) {
+                        out.put(i, DisbursementResult.rejected(r, reason));
+                        continue;
+                    }
+
+                    AmortizationSchedule schedule = AmortizationEngine.build(loan, now.toLocalDate());
+                    loan.setOutstandingPrincipal(loan.getPrincipal());
+                    loan.setOutstandingInterest(FixedPoint.fromCents(schedule.getInterestTotalCents()));
+                    accepted.add(i);
+                    disbursed.add(loan);
+                    schedules.add(schedule);
+                    rows.add(disbursementRow(loan, r.getAccountId(), now));
+                    credits.merge(r.getAccountId(), loan.getPrincipal(), BigDecimal::add);
+                }
+                if (accepted.isEmpty()) return out;
+
+                // every loan and account is locked and checked above, so any miss here is a real failure
+                List<Integer> notUpdated = loanDAO.markDisbursedBatch(disbursed, conn);
+                if (!notUpdated.isEmpty()) throw new SQLException("Failed to update loan status: " + notUpdated);
+                hold[0] = LedgerEngine.hold(credits);
+                List<Integer> notCredited = accountDAO.applyDeltaBatch(credits, conn);
+                if (!notCredited.isEmpty()) throw new SQLException("Failed to credit accounts: " + notCredited);
+                if (transactionDAO.createBatch(rows, conn) != rows.size())
+                    throw new SQLException("Failed to create disbursement transactions");
+                loanScheduleDAO.saveAll(schedules, conn);
+
+                for (int k = 0; k < accepted.size(); k++) {
+                    DisbursementRequest r = requests.get(accepted.get(k));
+                    out.put(accepted.get(k), new DisbursementResult(r.getLoanId(), r.getAccountId(),
+                            DisbursementResult.SUCCESS, null, rows.get(k).getTransactionID()));
+                }
+                return out;
+            });
+            hold[0].confirm();
+            List<Integer> disbursedIds = new ArrayList<>();
+            for (DisbursementResult r : written.values()) if (r.isSuccess()) disbursedIds.add(r.getLoanId());
+            loanScheduleDAO.invalidate(disbursedIds);
+            return written;
+        } finally {
+            hold[0].close();
+        }
+    }
+
+    private static boolean isDisbursable(Loan loan) {
+        return "APPLIED".equals(loan.getStatus()) || "APPROVED".equals(loan.getStatus());
+    }
+
+    private static Transaction disbursementRow(Loan loan, int accountId, LocalDateTime date) {
+        Transaction tx = new Transaction();
+        tx.setAccountID(accountId);
+        tx.setType("CREDIT");
+        tx.setAmount(loan.getPrincipal());
+        tx.setDate(date);
+        tx.setOrderNumber(OrderNumberGenerator.shared().next("LN-DSB-"));
+        tx.setStatus("COMPLETED");
+        tx.setPaymentMethod("LOAN_DISBURSEMENT");
+        tx.setNotes("Loan disbursement for loanId=" + loan.getLoanID());
+        return tx;
+    }
+
     /**
      * Repay loan by debiting an account.
-     * This is a naive implementation: it debits the given account and if the repaid
-     * amount >= loan principal it marks the loan CLOSED. In production you'd track
-     * cumulative repayments and interest.
+     * The amount is split into interest and principal following the schedule (interest first per
+     * installment). An amount equal to the payoff quote settles the loan early: it pays the remaining
+     * principal plus interest accrued to today, and the rest of the scheduled interest is waived.
+     * The debit, the loan_repayment row and the outstanding update share one transaction; the loan
+     * row is locked first, so concurrent repayments of the same loan serialize. The loan is CLOSED
+     * when outstanding principal and interest both reach zero.
      *
      * @param loanId loan id
      * @param accountId account to debit
@@ -141,25 +314,58 @@ public class LoanService {
         // Ensure account belongs to loan holder
         if (account.getAccountHolderID() != loan.getAccountHolderID())
             throw new IllegalStateException("Account does not belong to loan holder");
+        // checked again on the locked row; this keeps a rejected repayment from touching the schedule
+        if (!"DISBURSED".equals(loan.getStatus()))
+            throw new IllegalStateException("Loan is not repayable in status " + loan.getStatus());
 
-        try (Connection conn = DBConnection.getConnection()) {
+        AmortizationSchedule schedule = getSchedule(loanId);
+        long cents = FixedPoint.toCents(amount);
+
+        try (LedgerEngine.Hold hold = LedgerEngine.hold(accountId, amount.negate());
+             Connection conn = DBConnection.getConnection()) {
             try {
                 conn.setAutoCommit(false);
 
-                // Ensure sufficient funds
-                BigDecimal current = account.getBalance() == null ? BigDecimal.ZERO : account.getBalance();
-                if (current.compareTo(amount) < 0) throw new IllegalStateException("Insufficient funds for repayment");
+                // Lock the loan row: the outstanding amounts read here are the ones we overwrite
+                Loan locked = loanDAO.findByIdForUpdate(loanId, conn);
+                if (locked == null) throw new IllegalStateException("Loan not found: " + loanId);
+                if (!"DISBURSED".equals(locked.getStatus()))
+                    throw new IllegalStateException("Loan is not repayable in status " + locked.getStatus());
+
+                long[] outstanding = outstandingCents(locked, schedule, conn);
+                long principalLeft = outstanding[0];
+                long interestLeft = outstanding[1];
+                long paidToDate = Math.max(0, schedule.getTotalCents() - principalLeft - interestLeft);
+                long payoff = Math.min(Math.max(schedule.payoffQuoteCents(paidToDate, LocalDate.now()), principalLeft),
+                        principalLeft + interestLeft);
 
-                BigDecimal newBalance = current.subtract(amount);
-                boolean updated = accountDAO.updateBalance(accountId, newBalance, conn);
-                if (!updated) throw new SQLException("Failed to update account balance for repayment");
+                long interestPart;
+                long principalPart;
+                if (cents == payoff) {
+                    // early settlement: unearned scheduled interest is waived
+                    principalPart = principalLeft;
+                    interestPart = cents - principalPart;
+                } else if (cents > payoff) {
+                    throw new IllegalStateException("Repayment exceeds the payoff amount of " + FixedPoint.fromCents(payoff));
+                } else {
+                    interestPart = Math.min(schedule.interestPortionCents(paidToDate, cents), interestLeft);
+                    principalPart = cents - interestPart;
+                    if (principalPart > principalLeft)
+                        throw new IllegalStateException("Repayment exceeds the outstanding principal of " + FixedPoint.fromCents(principalLeft));
+                }
+                principalLeft -= principalPart;
+                interestLeft = cents == payoff ? 0 : interestLeft - interestPart;
+
+                // Guarded debit: zero rows updated means the balance would go negative
+                boolean updated = accountDAO.applyDelta(accountId, amount.negate(), conn);
+                if (!updated) throw new IllegalStateException("Insufficient funds for repayment");
 
                 Transaction tx = new Transaction();
                 tx.setAccountID(accountId);
                 tx.setType("DEBIT");
                 tx.setAmount(amount);
                 tx.setDate(LocalDateTime.now());
-                tx.setOrderNumber("LN-RPY-" + System.currentTimeMillis());
+                tx.setOrderNumber(OrderNumberGenerator.shared().next("LN-RPY-"));
                 tx.setStatus("COMPLETED");
                 tx.setPaymentMethod("LOAN_REPAYMENT");
                 tx.setNotes("Loan repayment for loanId=" + loanId);
@@ -167,14 +373,24 @@ public class LoanService {
                 int txId = transactionDAO.create(tx, conn);
                 if (txId <= 0) throw new SQLException("Failed to create repayment transaction");
 
-                // Naive loan closing: if this single repayment >= principal, mark closed.
-                // In real systems compute total repaid across payments -> outstanding.
-                if (amount.compareTo(loan.getPrincipal()) >= 0) {
-                    boolean closed = loanDAO.updateStatus(loanId, "CLOSED");
-                    if (!closed) throw new SQLException("Failed to close loan after repayment");
-                }
+                LoanRepayment repayment = new LoanRepayment();
+                repayment.setLoanID(loanId);
+                repayment.setAccountID(accountId);
+                repayment.setTransactionID(txId);
+                repayment.setAmount(amount);
+                repayment.setPrincipalPart(FixedPoint.fromCents(principalPart));
+                repayment.setInterestPart(FixedPoint.fromCents(interestPart));
+                repayment.setPaidAt(tx.getDate());
+                if (loanRepaymentDAO.create(repayment, conn) <= 0)
+                    throw new SQLException("Failed to record loan repayment");
+
+                String status = principalLeft == 0 && interestLeft == 0 ? "CLOSED" : "DISBURSED";
+                boolean saved = loanDAO.updateOutstanding(loanId, FixedPoint.fromCents(principalLeft),
+                        FixedPoint.fromCents(interestLeft), status, conn);
+                if (!saved) throw new SQLException("Failed to update loan outstanding balance");
 
                 conn.commit();
+                hold.confirm();
                 return txId;
             } catch (Exception ex) {
                 conn.rollback();
@@ -184,4 +400,112 @@ public class LoanService {
             }
         }
     }
+
+    /**
+     * Amortization schedule of a loan: cached, else read from loan_schedule, else built from the
+     * loan (starting at its creation date). Only a DISBURSED loan's built schedule is stored; for a
+     * loan not disbursed yet it is a preview, since disbursement writes the real one from its own date.
+     */
+    public AmortizationSchedule getSchedule(int loanId) throws SQLException {
+        if (loanId <= 0) throw new IllegalArgumentException("loanId required");
+        AmortizationSchedule schedule = loanScheduleDAO.findByLoan(loanId);
+        if (schedule != null) return schedule;
+
+        Loan loan = loanDAO.findById(loanId);
+        if (loan == null) throw new IllegalStateException("Loan not found: " + loanId);
+        LocalDate start = loan.getCreatedAt() == null ? LocalDate.now() : loan.getCreatedAt().toLocalDate();
+        schedule = AmortizationEngine.build(loan, start);
+        if (!"DISBURSED".equals(loan.getStatus())) return schedule;
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+                loanScheduleDAO.save(schedule, conn);
+                conn.commit();
+            } catch (Exception ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        loanScheduleDAO.invalidate(Collections.singletonList(loanId));
+        return schedule;
+    }
+
+    /**
+     * Outstanding principal plus interest of a loan (a single row read; zero once CLOSED).
+     */
+    public BigDecimal getOutstandingBalance(int loanId) throws SQLException {
+        if (loanId <= 0) throw new IllegalArgumentException("loanId required");
+        Loan loan = loanDAO.findById(loanId);
+        if (loan == null) throw new IllegalStateException("Loan not found: " + loanId);
+        if (loan.getOutstandingPrincipal() == null) {
+            // not disbursed yet, or disbursed before the columns existed
+            if (!"DISBURSED".equals(loan.getStatus())) return BigDecimal.ZERO;
+            long[] outstanding = outstandingCents(loan, getSchedule(loanId), null);
+            return FixedPoint.fromCents(outstanding[0] + outstanding[1]);
+        }
+        return loan.getOutstandingPrincipal().add(loan.getOutstandingInterest());
+    }
+
+    /**
+     * Repayments of a loan, oldest first.
+     */
+    public List<LoanRepayment> getRepayments(int loanId) throws SQLException {
+        if (loanId <= 0) throw new IllegalArgumentException("loanId required");
+        return loanRepaymentDAO.listByLoan(loanId);
+    }
+
+    /**
+     * Amount that settles the loan on the given day, from its materialized outstanding balance.
+     */
+    public BigDecimal quotePayoff(int loanId, LocalDate asOf) throws SQLException {
+        if (loanId <= 0) throw new IllegalArgumentException("loanId required");
+        Loan loan = loanDAO.findById(loanId);
+        if (loan == null) throw new IllegalStateException("Loan not found: " + loanId);
+        if ("CLOSED".equals(loan.getStatus())) return BigDecimal.ZERO;
+        AmortizationSchedule schedule = getSchedule(loanId);
+        long[] outstanding = outstandingCents(loan, schedule, null);
+        long left = outstanding[0] + outstanding[1];
+        long paid = Math.max(0, schedule.getTotalCents() - left);
+        return FixedPoint.fromCents(Math.min(schedule.payoffQuoteCents(paid, asOf == null ? LocalDate.now() : asOf), left));
+    }
+
+    /**
+     * Amount that settles the loan on the given day, given the total repaid so far.
+     */
+    public BigDecimal quotePayoff(int loanId, BigDecimal repaidToDate, LocalDate asOf) throws SQLException {
+        long paid = repaidToDate == null ? 0 : FixedPoint.toCents(repaidToDate);
+        return FixedPoint.fromCents(getSchedule(loanId).payoffQuoteCents(paid, asOf == null ? LocalDate.now() : asOf));
+    }
+
+    /**
+     * Split a repayment into {interest, principal} following the schedule (interest first per installment),
+     * given the total repaid before it.
+     */
+    public BigDecimal[] allocateRepayment(int loanId, BigDecimal repaidToDate, BigDecimal amount) throws SQLException {
+        if (amount == null || amount.signum() <= 0) throw new IllegalArgumentException("amount must be positive");
+        long paid = repaidToDate == null ? 0 : FixedPoint.toCents(repaidToDate);
+        long cents = FixedPoint.toCents(amount);
+        long interest = getSchedule(loanId).interestPortionCents(paid, cents);
+        return new BigDecimal[]{FixedPoint.fromCents(interest), FixedPoint.fromCents(cents - interest)};
+    }
+
+    /**
+     * {principal, interest} still owed in cents. Loans disbursed before outstanding amounts were
+     * materialized have none stored; their balance is the schedule less the repayments already in
+     * the transaction history, allocated interest first per installment like any other repayment.
+     * conn is the caller's transaction, or null to read on a connection of its own.
+     */
+    private long[] outstandingCents(Loan loan, AmortizationSchedule schedule, Connection conn) throws SQLException {
+        if (loan.getOutstandingPrincipal() != null && loan.getOutstandingInterest() != null)
+            return new long[]{FixedPoint.toCents(loan.getOutstandingPrincipal()), FixedPoint.toCents(loan.getOutstandingInterest())};
+        BigDecimal history = conn == null
+                ? loanDAO.repaidFromHistory(loan.getLoanID())
+                : loanDAO.repaidFromHistory(loan.getLoanID(), conn);
+        long repaid = Math.min(FixedPoint.toCents(history), schedule.getTotalCents());
+        long interestPaid = schedule.interestPortionCents(0, repaid);
+        return new long[]{schedule.getPrincipalTotalCents() - (repaid - interestPaid),
+                schedule.getInterestTotalCents() - interestPaid};
+    }
 }
@@ -0,0 +1,370 @@
+package com.financeportal.service;
+
+import com.financeportal.dao.DBConnection;
+import com.financeportal.dao.LoanDAO;
+import com.financeportal.dao.LoanPortfolioSnapshot;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo stress test of the disbursed loan book over a short horizon (default 12 months).
+ *
+ * Model (one-factor Vasicek):
+ *  - Every scenario draws one systematic factor Z ~ N(0,1); Z > 0 is a bad year.
+ *  - Market rates move by rateShock + rateVol x Z. The shifted loan rate picks the loan's PD band
+ *    (RATE_BANDS / ANNUAL_PD): a rate shock stresses borrower affordability. Loans are fixed rate,
+ *    so their own cash flows are not repriced.
+ *  - Conditional horizon PD per band: N((N^-1(pd) + sqrt(rho) Z) / sqrt(1 - rho)).
+ *  - A defaulting loan pays its installments up to a uniformly drawn month and nothing after;
+ *    the loss is lgd x outstanding principal. Recoveries arrive after the horizon (workouts take
+ *    longer than a year), so they reduce the loss but not the horizon cash flow.
+ *
+ * Per-loan payments are precomputed once into primitive arrays sorted by rate; scenarios then run
+ * on a parallel IntStream, each with its own SplittableRandom derived from (seed, scenario), so a
+ * run is reproducible for a given seed regardless of thread count.
+ *
+ * Settings come from service.stress.* properties. Run: java com.financeportal.service.PortfolioStressSimulator [scenarios] [seed]
+ */
+public class PortfolioStressSimulator {
+
+    /** Upper bounds of the rate bands; ANNUAL_PD has one more entry for rates above the last bound. */
+    private static final double[] RATE_BANDS = {0.06, 0.10, 0.15, 0.20};
+    private static final double[] ANNUAL_PD = {0.01, 0.02, 0.04, 0.07, 0.12};
+    /** Rates are banded at 1 bp resolution; rates above 100% fall in the top bucket. */
+    private static final int MAX_RATE_BP = 10_000;
+    private static final double UNIT = 0x1.0p53;
+
+    private final int horizonMonths;
+    private final double lgd;
+    private final double correlation;
+    private final double rateShock;
+    private final double rateVol;
+
+    public PortfolioStressSimulator() {
+        this(DBConnection.getIntProperty("service.stress.horizonMonths", 12),
+                Double.parseDouble(DBConnection.getProperty("service.stress.lgd", "0.45")),
+                Double.parseDouble(DBConnection.getProperty("service.stress.correlation", "0.12")),
+                DBConnection.getIntProperty("service.stress.rateShockBps", 200) / 10_000.0,
+                DBConnection.getIntProperty("service.stress.rateVolBps", 100) / 10_000.0);
+    }
+
+    /**
+     * @param lgd         loss given default, fraction of outstanding principal
+     * @param correlation asset correlation with the systematic factor (0 &lt;= rho &lt; 1)
+     * @param rateShock   mean shift of market rates (0.02 = +200 bp)
+     * @param rateVol     standard deviation of the shift per unit of the systematic factor
+     */
+    public PortfolioStressSimulator(int horizonMonths, double lgd, double correlation, double rateShock, double rateVol) {
+        if (horizonMonths < 1) throw new IllegalArgumentException("horizonMonths must be >= 1");
+        if (lgd < 0 || lgd > 1) throw new IllegalArgumentException("lgd must be between 0 and 1");
+        if (correlation < 0 || correlation >= 1) throw new IllegalArgumentException("correlation must be in [0, 1)");
+        if (rateVol < 0) throw new IllegalArgumentException("rateVol cannot be negative");
+        this.horizonMonths = horizonMonths;
+        this.lgd = lgd;
+        this.correlation = correlation;
+        this.rateShock = rateShock;
+        this.rateVol = rateVol;
+    }
+
+    /** Loss and cash-flow distribution of one run. Amounts are in currency units. */
+    public static final class Report {
+        private final int loans;
+        private final int scenarios;
+        private final long seed;
+        private final BigDecimal exposure;
+        private final BigDecimal scheduledCashFlow;
+        private final BigDecimal expectedLoss;
+        private final BigDecimal lossVar95;
+        private final BigDecimal lossVar99;
+        private final BigDecimal lossVar999;
+        private final BigDecimal expectedShortfall99;
+        private final BigDecimal cashFlowMean;
+        private final BigDecimal cashFlowP1;
+        private final BigDecimal cashFlowP5;
+        private final BigDecimal cashFlowP50;
+        private final BigDecimal cashFlowP95;
+        private final double meanDefaultRate;
+        private final long elapsedMillis;
+
+        Report(int loans, int scenarios, long seed, double exposure, double scheduledCashFlow,
+               double[] sortedLoss, double[] sortedCash, double meanDefaultRate, long elapsedMillis) {
+            this.loans = loans;
+            this.scenarios = scenarios;
+            this.seed = seed;
+            this.exposure = money(exposure);
+            this.scheduledCashFlow = money(scheduledCashFlow);
+            this.expectedLoss = money(mean(sortedLoss, 0));
+            this.lossVar95 = money(percentile(sortedLoss, 0.95));
+            this.lossVar99 = money(percentile(sortedLoss, 0.99));
+            this.lossVar999 = money(percentile(sortedLoss, 0.999));
+            // mean of the worst 1% of scenarios (at least one)
+            this.expectedShortfall99 = money(mean(sortedLoss, Math.min(sortedLoss.length - 1, (int) Math.floor(sortedLoss.length * 0.99))));
+            this.cashFlowMean = money(mean(sortedCash, 0));
+            this.cashFlowP1 = money(percentile(sortedCash, 0.01));
+            this.cashFlowP5 = money(percentile(sortedCash, 0.05));
+            this.cashFlowP50 = money(percentile(sortedCash, 0.50));
+            this.cashFlowP95 = money(percentile(sortedCash, 0.95));
+            this.meanDefaultRate = meanDefaultRate;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getLoans() { return loans; }
+        public int getScenarios() { return scenarios; }
+        public long getSeed() { return seed; }
+        /** Total outstanding principal. */
+        public BigDecimal getExposure() { return exposure; }
+        /** Contractual cash flow over the horizon if nobody defaults. */
+        public BigDecimal getScheduledCashFlow() { return scheduledCashFlow; }
+        public BigDecimal getExpectedLoss() { return expectedLoss; }
+        public BigDecimal getLossVar95() { return lossVar95; }
+        public BigDecimal getLossVar99() { return lossVar99; }
+        public BigDecimal getLossVar999() { return lossVar999; }
+        public BigDecimal getExpectedShortfall99() { return expectedShortfall99; }
+        public BigDecimal getCashFlowMean() { return cashFlowMean; }
+        public BigDecimal getCashFlowP1() { return cashFlowP1; }
+        public BigDecimal getCashFlowP5() { return cashFlowP5; }
+        public BigDecimal getCashFlowP50() { return cashFlowP50; }
+        public BigDecimal getCashFlowP95() { return cashFlowP95; }
+        /** Defaulted loans / loans, averaged over scenarios. */
+        public double getMeanDefaultRate() { return meanDefaultRate; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return "loans=" + loans + " scenarios=" + scenarios + " seed=" + seed
+                    + " exposure=" + exposure + " scheduledCashFlow=" + scheduledCashFlow
+                    + " defaultRate=" + String.format("%.4f", meanDefaultRate)
+                    + " EL=" + expectedLoss + " VaR95=" + lossVar95 + " VaR99=" + lossVar99
+                    + " VaR99.9=" + lossVar999 + " ES99=" + expectedShortfall99
+                    + " cashFlow[mean=" + cashFlowMean + " p1=" + cashFlowP1 + " p5=" + cashFlowP5
+                    + " p50=" + cashFlowP50 + " p95=" + cashFlowP95 + "]"
+                    + " elapsed=" + elapsedMillis + "ms";
+        }
+
+        private static BigDecimal money(double cents) {
+            return BigDecimal.valueOf(Math.round(cents), 2);
+        }
+
+        private static double mean(double[] sorted, int from) {
+            double sum = 0;
+            for (int i = from; i < sorted.length; i++) sum += sorted[i];
+            return sum / (sorted.length - from);
+        }
+
+        private static double percentile(double[] sorted, double q) {
+            int i = (int) Math.ceil(q * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+        }
+    }
+
+    /**
+     * Load the current loan book and run the given number of scenarios.
+     */
+    public Report run(int scenarios, long seed) throws SQLException {
+        return run(new LoanDAO().loadPortfolioSnapshot(LocalDate.now()), scenarios, seed);
+    }
+
+    /**
+     * Run the given number of scenarios over a snapshot (no database access).
+     */
+    public Report run(LoanPortfolioSnapshot book, int scenarios, long seed) {
+        if (scenarios < 1) throw new IllegalArgumentException("scenarios must be >= 1");
+        long start = System.currentTimeMillis();
+        int n = book.size();
+
+        // counting sort by rate in basis points: the loans of one PD band are then a contiguous
+        // range for any rate shift, and the scenario loop needs no per-loan band lookup
+        int[] bucketStart = new int[MAX_RATE_BP + 2];
+        int[] rateBp = new int[n];
+        for (int i = 0; i < n; i++) {
+            rateBp[i] = (int) Math.max(0, Math.min(MAX_RATE_BP, Math.round(book.annualRate(i) * 10_000)));
+            bucketStart[rateBp[i] + 1]++;
+        }
+        for (int bp = 0; bp <= MAX_RATE_BP; bp++) bucketStart[bp + 1] += bucketStart[bp];
+        int[] next = Arrays.copyOf(bucketStart, MAX_RATE_BP + 1);
+
+        // per-loan inputs in rate order, in cents
+        double[] ead = new double[n];
+        double[] payment = new double[n];
+        double[] horizonCash = new double[n];
+        int[] payMonths = new int[n];
+        double exposure = 0;
+        double scheduled = 0;
+        for (int i = 0; i < n; i++) {
+            int j = next[rateBp[i]]++;
+            int k = Math.min(horizonMonths, book.remainingMonths(i));
+            ead[j] = book.outstandingCents(i);
+            payMonths[j] = k;
+            payment[j] = monthlyPayment(book, i);
+            horizonCash[j] = horizonCashFlow(book, i, payment[j], k);
+            exposure += ead[j];
+            scheduled += horizonCash[j];
+        }
+
+        // N^-1 of each band's horizon PD
+        double[] pdThreshold = new double[ANNUAL_PD.length];
+        for (int b = 0; b < ANNUAL_PD.length; b++) {
+            double horizonPd = 1 - Math.pow(1 - ANNUAL_PD[b], horizonMonths / 12.0);
+            pdThreshold[b] = inverseNormal(horizonPd);
+        }
+        double sqrtRho = Math.sqrt(correlation);
+        double sqrtOneMinusRho = Math.sqrt(1 - correlation);
+
+        double[] loss = new double[scenarios];
+        double[] cash = new double[scenarios];
+        long[] defaults = new long[scenarios];
+        IntStream.range(0, scenarios).parallel().forEach(s -> {
+            SplittableRandom rnd = new SplittableRandom(scenarioSeed(seed, s));
+            double z = inverseNormal(uniformOpen(rnd));
+            double shiftBp = (rateShock + rateVol * z) * 10_000;
+
+            double lost = 0;
+            double received = 0;
+            long defaulted = 0;
+            int from = 0;
+            for (int b = 0; b < ANNUAL_PD.length; b++) {
+                // band b holds the loans with rate + shift below RATE_BANDS[b]
+                int to = n;
+                if (b < RATE_BANDS.length) {
+                    double cut = Math.ceil(RATE_BANDS[b] * 10_000 - shiftBp);
+                    to = bucketStart[(int) Math.max(0, Math.min(MAX_RATE_BP + 1, cut))];
+                }
+                double pd = normal((pdThreshold[b] + sqrtRho * z) / sqrtOneMinusRho);
+                // compare 53-bit uniforms as longs: u < pd  <=>  bits < pd * 2^53
+                long threshold = (long) (pd * UNIT);
+                for (int i = from; i < to; i++) {
+                    long u = rnd.nextLong() >>> 11;
+                    if (u < threshold) {
+                        // u / threshold is uniform on [0, 1): reuse it for the default month
+                        int paidMonths = (int) ((double) u / threshold * payMonths[i]);
+                        lost += lgd * ead[i];
+                        received += paidMonths * payment[i];
+                        defaulted++;
+                    } else {
+                        received += horizonCash[i];
+                    }
+                }
+                from = Math.max(from, to);
+            }
+            loss[s] = lost;
+            cash[s] = received;
+            defaults[s] = defaulted;
+        });
+
+        double defaultRate = 0;
+        if (n > 0) {
+            for (long d : defaults) defaultRate += (double) d / n;
+            defaultRate /= scenarios;
+        }
+        Arrays.sort(loss);
+        Arrays.sort(cash);
+        return new Report(n, scenarios, seed, exposure, scheduled, loss, cash, defaultRate,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Regular monthly installment in cents (the interest-only balloon is not included).
+     */
+    static double monthlyPayment(LoanPortfolioSnapshot book, int i) {
+        double r = book.annualRate(i) / 12;
+        double balance = book.outstandingCents(i);
+        switch (book.repaymentType(i)) {
+            case LoanPortfolioSnapshot.FLAT:
+                // interest on the original principal, principal in equal parts
+                double principal = book.principalCents(i);
+                return principal / book.termMonths(i) + principal * r;
+            case LoanPortfolioSnapshot.INTEREST_ONLY:
+                return balance * r;
+            default:
+                int left = book.remainingMonths(i);
+                return r == 0 ? balance / left : balance * r / (1 - Math.pow(1 + r, -left));
+        }
+    }
+
+    /**
+     * Contractual cash flow over the next k installments, in cents.
+     */
+    private static double horizonCashFlow(LoanPortfolioSnapshot book, int i, double payment, int k) {
+        double balance = book.outstandingCents(i);
+        switch (book.repaymentType(i)) {
+            case LoanPortfolioSnapshot.FLAT:
+                // principal repaid within the horizon cannot exceed what is left
+                double principal = book.principalCents(i);
+                double interest = principal * book.annualRate(i) / 12;
+                return Math.min(balance, k * principal / book.termMonths(i)) + k * interest;
+            case LoanPortfolioSnapshot.INTEREST_ONLY:
+                return k * payment + (book.remainingMonths(i) <= k ? balance : 0);
+            default:
+                return k * payment;
+        }
+    }
+
+    /** Independent, well-mixed seed per scenario (SplitMix64 finalizer). */
+    private static long scenarioSeed(long seed, int scenario) {
+        long z = seed + (scenario + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Uniform on (0, 1), safe for inverseNormal. */
+    private static double uniformOpen(SplittableRandom rnd) {
+        double u;
+        do {
+            u = rnd.nextDouble();
+        } while (u == 0.0);
+        return u;
+    }
+
+    /**
+     * Standard normal CDF (Abramowitz-Stegun 7.1.26 via erf, absolute error below 1.5e-7).
+     */
+    static double normal(double x) {
+        double t = 1 / (1 + 0.3275911 * Math.abs(x) / Math.sqrt(2));
+        double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        double erfc = poly * Math.exp(-x * x / 2);
+        return x >= 0 ? 1 - erfc / 2 : erfc / 2;
+    }
+
+    /**
+     * Inverse standard normal CDF (Acklam's rational approximation, relative error below 1.2e-9).
+     */
+    static double inverseNormal(double p) {
+        if (p <= 0 || p >= 1) throw new IllegalArgumentException("p must be in (0, 1)");
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int scenarios = args.length > 0 ? Integer.parseInt(args[0]) : DBConnection.getIntProperty("service.stress.scenarios", 2000);
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : DBConnection.getLongProperty("service.stress.seed", 42L);
+        Report r = new PortfolioStressSimulator().run(scenarios, seed);
+        System.out.println("Portfolio stress test: " + r);
+    }
+}
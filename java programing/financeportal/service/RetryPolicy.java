@@ -0,0 +1,99 @@
+package com.financeportal.service;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded retry with exponential backoff and full jitter.
+ *
+ * Attempt n (1-based) that fails with a retryable exception sleeps a random time in
+ * [0, min(maxDelayMs, baseDelayMs * 2^(n-1))] before the next one; after maxAttempts the
+ * last exception is rethrown. Jitter keeps writers that collided from colliding again in lockstep.
+ *
+ * Counters are cumulative for the lifetime of the policy.
+ */
+public final class RetryPolicy {
+
+    /** One attempt of the retried operation; it must be safe to run again from scratch. */
+    public interface Attempt<T> {
+        T run() throws SQLException;
+    }
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Predicate<Exception> retryable;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final AtomicLong backoffMillis = new AtomicLong();
+
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, Predicate<Exception> retryable) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be >= 1");
+        if (baseDelayMs < 0 || maxDelayMs < baseDelayMs) throw new IllegalArgumentException("Need 0 <= baseDelayMs <= maxDelayMs");
+        if (retryable == null) throw new IllegalArgumentException("retryable predicate required");
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Run the attempt, retrying retryable failures up to maxAttempts in total.
+     */
+    public <T> T execute(Attempt<T> attempt) throws SQLException {
+        calls.incrementAndGet();
+        for (int n = 1; ; n++) {
+            try {
+                return attempt.run();
+            } catch (SQLException | RuntimeException ex) {
+                if (!retryable.test(ex)) throw ex;
+                if (n >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    throw ex;
+                }
+                retries.incrementAndGet();
+                backoff(n);
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws SQLException {
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 30));
+        long delay = cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+        backoffMillis.addAndGet(delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while backing off before a retry", e);
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /** Operations started through execute(...). */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /** Extra attempts made after a retryable failure. */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /** Operations that still failed after maxAttempts. */
+    public long getExhausted() {
+        return exhausted.get();
+    }
+
+    /** Total time slept between attempts, in milliseconds. */
+    public long getTotalBackoffMillis() {
+        return backoffMillis.get();
+    }
+}
@@ -5,83 +5,140 @@ import com.financeportal.dao.TransactionDAO;
 import com.financeportal.dao.DBConnection;
 import com.financeportal.model.Account;
 import com.financeportal.model.Transaction;
+import com.financeportal.util.OrderNumberGenerator;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * TransactionService - business logic around transactions.
  * Added transfer(...) method to move money between two accounts atomically.
+ *
+ * Transfers first take in-process account locks (service.locks.stripes in database.properties,
+ * default 256), so same-account transfers queue in the JVM instead of inside MySQL.
+ *
+ * transferOptimistic(...) is the lock-free alternative: plain reads, then version-checked updates
+ * (AccountDAO.compareAndSetBalance), retried with jittered backoff when another writer got there first
+ * (service.retry.maxAttempts/baseDelayMs/maxDelayMs, defaults 5/2/100).
+ *
+ * When constructed with a LedgerEngine, transfer(...) is served by the in-memory ledger instead
+ * (balance check in memory, journal append, asynchronous projection to the database). The other
+ * paths keep writing the database directly and take a LedgerEngine.Hold while a ledger is running.
  */
 public class TransactionService {
 
+    // shared by every TransactionService instance (each panel creates its own)
+    private static final AccountLockManager ACCOUNT_LOCKS =
+            new AccountLockManager(DBConnection.getIntProperty("service.locks.stripes", 256));
+
+    private static final RetryPolicy OPTIMISTIC_RETRY = new RetryPolicy(
+            DBConnection.getIntProperty("service.retry.maxAttempts", 5),
+            DBConnection.getLongProperty("service.retry.baseDelayMs", 2L),
+            DBConnection.getLongProperty("service.retry.maxDelayMs", 100L),
+            ex -> ex instanceof ConcurrentUpdateException);
+
     private final AccountDAO accountDAO;
     private final TransactionDAO transactionDAO;
+    private final LedgerEngine ledger;
 
     public TransactionService() {
+        this(null);
+    }
+
+    /**
+     * @param ledger in-memory ledger to route transfers through, or null for direct database transfers
+     */
+    public TransactionService(LedgerEngine ledger) {
         this.accountDAO = new AccountDAO();
         this.transactionDAO = new TransactionDAO();
+        this.ledger = ledger;
     }
 
     // existing postTransaction(Transaction tx) omitted for brevity (keep your earlier version)
 
     /**
      * Transfer amount from 'fromAccountId' to 'toAccountId' (atomic).
+     * Runs as a UnitOfWork: both account rows are locked in ascending id order on the transfer's
+     * own connection and the balance is checked on the locked row, so opposite-direction transfers
+     * cannot deadlock and a deadlock or lock timeout elsewhere is retried transparently.
+     * Each balance change is still a single guarded UPDATE (AccountDAO.applyDelta).
      * Returns true on success.
      */
     public boolean transfer(int fromAccountId, int toAccountId, BigDecimal amount) throws SQLException {
-        if (fromAccountId <= 0 || toAccountId <= 0) throw new IllegalArgumentException("Account IDs must be positive");
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("Amount must be positive");
-        if (fromAccountId == toAccountId) throw new IllegalArgumentException("Cannot transfer to same account");
+        validateTransfer(fromAccountId, toAccountId, amount);
+
+        if (ledger != null) {
+            try {
+                ledger.transfer(fromAccountId, toAccountId, amount);
+                return true;
+            } catch (IOException ex) {
+                throw new SQLException("Ledger journal write failed", ex);
+            }
+        }
+
+        // lock both accounts before borrowing a connection
+        AccountLockManager.Held locks = ACCOUNT_LOCKS.lockBoth(fromAccountId, toAccountId);
+        try (LedgerEngine.Hold hold = LedgerEngine.holdTransfer(fromAccountId, toAccountId, amount)) {
+            UnitOfWork.execute(List.of(fromAccountId, toAccountId), (conn, locked) -> {
+                Account from = locked.get(fromAccountId);
+                if (from == null) throw new IllegalStateException("Source account not found");
+                if (!locked.containsKey(toAccountId)) throw new IllegalStateException("Destination account not found");
+                if (from.getBalance().compareTo(amount) < 0) throw new IllegalStateException("Insufficient funds");
+
+                applyTransfer(fromAccountId, toAccountId, amount, conn);
+                return true;
+            });
+            hold.confirm();
+            return true;
+        } finally {
+            locks.close();
+        }
+    }
+
+    /**
+     * Transfer with optimistic concurrency: both accounts are read without a transaction or row
+     * locks, then written with version-checked updates in ascending id order. If either account
+     * changed in between, the attempt rolls back and is retried from the read (OPTIMISTIC_RETRY).
+     * Under low contention this commits without any lock held across the read.
+     *
+     * @throws IllegalStateException on insufficient funds or a missing account
+     * @throws ConcurrentUpdateException if every attempt lost a race
+     */
+    public boolean transferOptimistic(int fromAccountId, int toAccountId, BigDecimal amount) throws SQLException {
+        validateTransfer(fromAccountId, toAccountId, amount);
+        try (LedgerEngine.Hold hold = LedgerEngine.holdTransfer(fromAccountId, toAccountId, amount)) {
+            boolean ok = OPTIMISTIC_RETRY.execute(() -> tryTransferOptimistic(fromAccountId, toAccountId, amount));
+            hold.confirm();
+            return ok;
+        }
+    }
+
+    private boolean tryTransferOptimistic(int fromAccountId, int toAccountId, BigDecimal amount) throws SQLException {
+        Account from = accountDAO.getById(fromAccountId);
+        if (from == null) throw new IllegalStateException("Source account not found");
+        Account to = accountDAO.getById(toAccountId);
+        if (to == null) throw new IllegalStateException("Destination account not found");
+        if (from.getBalance().compareTo(amount) < 0) throw new IllegalStateException("Insufficient funds");
 
         try (Connection conn = DBConnection.getConnection()) {
             try {
                 conn.setAutoCommit(false);
 
-                Account from = accountDAO.getById(fromAccountId);
-                Account to = accountDAO.getById(toAccountId);
-                if (from == null || to == null) throw new IllegalStateException("One or both accounts not found");
-
-                BigDecimal fromBalance = from.getBalance() == null ? BigDecimal.ZERO : from.getBalance();
-                if (fromBalance.compareTo(amount) < 0) throw new IllegalStateException("Insufficient funds");
-
-                BigDecimal newFrom = fromBalance.subtract(amount);
-                BigDecimal toBalance = to.getBalance() == null ? BigDecimal.ZERO : to.getBalance();
-                BigDecimal newTo = toBalance.add(amount);
-
-                boolean ub1 = accountDAO.updateBalance(fromAccountId, newFrom, conn);
-                if (!ub1) throw new SQLException("Failed to debit source account");
-
-                boolean ub2 = accountDAO.updateBalance(toAccountId, newTo, conn);
-                if (!ub2) throw new SQLException("Failed to credit destination account");
-
-                // create debit transaction
-                Transaction debit = new Transaction();
-                debit.setAccountID(fromAccountId);
-                debit.setType("DEBIT");
-                debit.setAmount(amount);
-                debit.setDate(LocalDateTime.now());
-                debit.setOrderNumber("TR-" + System.currentTimeMillis() + "-D");
-                debit.setStatus("COMPLETED");
-                debit.setPaymentMethod("TRANSFER");
-                debit.setNotes("Transfer to account " + toAccountId);
-                int dId = transactionDAO.create(debit, conn);
-                if (dId <= 0) throw new SQLException("Failed to create debit transaction");
-
-                // create credit transaction
-                Transaction credit = new Transaction();
-                credit.setAccountID(toAccountId);
-                credit.setType("CREDIT");
-                credit.setAmount(amount);
-                credit.setDate(LocalDateTime.now());
-                credit.setOrderNumber("TR-" + System.currentTimeMillis() + "-C");
-                credit.setStatus("COMPLETED");
-                credit.setPaymentMethod("TRANSFER");
-                credit.setNotes("Transfer from account " + fromAccountId);
-                int cId = transactionDAO.create(credit, conn);
-                if (cId <= 0) throw new SQLException("Failed to create credit transaction");
+                Account first = fromAccountId < toAccountId ? from : to;
+                Account second = first == from ? to : from;
+                for (Account a : new Account[]{first, second}) {
+                    BigDecimal newBalance = a == from ? a.getBalance().subtract(amount) : a.getBalance().add(amount);
+                    if (!accountDAO.compareAndSetBalance(a.getAccountID(), a.getVersion(), newBalance, conn))
+                        throw new ConcurrentUpdateException("Account " + a.getAccountID() + " changed concurrently");
+                }
+                createTransferRows(fromAccountId, toAccountId, amount, conn);
 
                 conn.commit();
                 return true;
@@ -93,4 +150,136 @@ public class TransactionService {
             }
         }
     }
+
+    /**
+     * Apply a whole transfer file atomically with netting.
+     *
+     * Net balance deltas are computed per account in memory and each distinct account is
+     * updated once (one guarded statement each, sent as a JDBC batch in ascending id order,
+     * so concurrent bulk runs lock rows in the same order). The individual DEBIT/CREDIT rows
+     * are still written for every transfer, via batched inserts. Work therefore scales with
+     * the number of distinct accounts rather than the number of transfers.
+     *
+     * Only each account's NET result must stay >= 0; the file is all-or-nothing. Runs as a
+     * UnitOfWork over every account in the file, so it is retried on deadlock or lock timeout.
+     *
+     * @return number of transfers applied
+     */
+    public int transferBulk(List<TransferRequest> transfers) throws SQLException {
+        if (transfers == null || transfers.isEmpty()) return 0;
+        Map<Integer, BigDecimal> net = new TreeMap<>();
+        for (TransferRequest t : transfers) {
+            if (t == null) throw new IllegalArgumentException("Transfer cannot be null");
+            validateTransfer(t.getFromAccountId(), t.getToAccountId(), t.getAmount());
+            net.merge(t.getFromAccountId(), t.getAmount().negate(), BigDecimal::add);
+            net.merge(t.getToAccountId(), t.getAmount(), BigDecimal::add);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> rows = new ArrayList<>(transfers.size() * 2);
+        for (TransferRequest t : transfers) {
+            String orderNumber = OrderNumberGenerator.shared().next("BULK-");
+            rows.add(transferRow(t.getFromAccountId(), "DEBIT", t.getAmount(), now,
+                    orderNumber + "-D", "Transfer to account " + t.getToAccountId()));
+            rows.add(transferRow(t.getToAccountId(), "CREDIT", t.getAmount(), now,
+                    orderNumber + "-C", "Transfer from account " + t.getFromAccountId()));
+        }
+
+        try (LedgerEngine.Hold hold = LedgerEngine.hold(net)) {
+            int applied = UnitOfWork.execute(net.keySet(), (conn, locked) -> {
+                // zero net deltas are still sent: they double as an existence check
+                List<Integer> failed = accountDAO.applyDeltaBatch(net, conn);
+                if (!failed.isEmpty())
+                    throw new IllegalStateException("Insufficient funds or account not found: " + failed);
+
+                // a retried unit re-inserts the same rows; clear ids set by a rolled-back attempt
+                for (Transaction tx : rows) tx.setTransactionID(0);
+                int inserted = transactionDAO.createBatch(rows, conn);
+                if (inserted != rows.size()) throw new SQLException("Failed to create bulk transfer transactions");
+                return transfers.size();
+            });
+            hold.confirm();
+            return applied;
+        }
+    }
+
+    static Transaction transferRow(int accountId, String type, BigDecimal amount, LocalDateTime date,
+                                           String orderNumber, String notes) {
+        Transaction tx = new Transaction();
+        tx.setAccountID(accountId);
+        tx.setType(type);
+        tx.setAmount(amount);
+        tx.setDate(date);
+        tx.setOrderNumber(orderNumber);
+        tx.setStatus("COMPLETED");
+        tx.setPaymentMethod("TRANSFER");
+        tx.setNotes(notes);
+        return tx;
+    }
+
+    static void validateTransfer(int fromAccountId, int toAccountId, BigDecimal amount) {
+        if (fromAccountId <= 0 || toAccountId <= 0) throw new IllegalArgumentException("Account IDs must be positive");
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("Amount must be positive");
+        if (fromAccountId == toAccountId) throw new IllegalArgumentException("Cannot transfer to same account");
+    }
+
+    /**
+     * Apply one transfer on the caller's connection without committing: guarded debit and credit,
+     * then the DEBIT/CREDIT transaction rows. Used by transfer() and by TransferBatcher.
+     */
+    void applyTransfer(int fromAccountId, int toAccountId, BigDecimal amount, Connection conn) throws SQLException {
+        // zero rows means the source is missing or would go negative
+        boolean ub1 = accountDAO.applyDelta(fromAccountId, amount.negate(), conn);
+        if (!ub1) throw new IllegalStateException("Insufficient funds or source account not found");
+
+        boolean ub2 = accountDAO.applyDelta(toAccountId, amount, conn);
+        if (!ub2) throw new IllegalStateException("Destination account not found");
+
+        createTransferRows(fromAccountId, toAccountId, amount, conn);
+    }
+
+    private void createTransferRows(int fromAccountId, int toAccountId, BigDecimal amount, Connection conn) throws SQLException {
+        // both legs share one order number, distinguished by the -D/-C suffix
+        String orderNumber = OrderNumberGenerator.shared().next("TR-");
+
+        // create debit transaction
+        Transaction debit = new Transaction();
+        debit.setAccountID(fromAccountId);
+        debit.setType("DEBIT");
+        debit.setAmount(amount);
+        debit.setDate(LocalDateTime.now());
+        debit.setOrderNumber(orderNumber + "-D");
+        debit.setStatus("COMPLETED");
+        debit.setPaymentMethod("TRANSFER");
+        debit.setNotes("Transfer to account " + toAccountId);
+        int dId = transactionDAO.create(debit, conn);
+        if (dId <= 0) throw new SQLException("Failed to create debit transaction");
+
+        // create credit transaction
+        Transaction credit = new Transaction();
+        credit.setAccountID(toAccountId);
+        credit.setType("CREDIT");
+        credit.setAmount(amount);
+        credit.setDate(LocalDateTime.now());
+        credit.setOrderNumber(orderNumber + "-C");
+        credit.setStatus("COMPLETED");
+        credit.setPaymentMethod("TRANSFER");
+        credit.setNotes("Transfer from account " + fromAccountId);
+        int cId = transactionDAO.create(credit, conn);
+        if (cId <= 0) throw new SQLException("Failed to create credit transaction");
+    }
+
+    /**
+     * Shared account lock manager (stripe count and contention metrics).
+     */
+    public static AccountLockManager getAccountLocks() {
+        return ACCOUNT_LOCKS;
+    }
+
+    /**
+     * Retry policy (and retry metrics) of transferOptimistic.
+     */
+    public static RetryPolicy getOptimisticRetryPolicy() {
+        return OPTIMISTIC_RETRY;
+    }
 }
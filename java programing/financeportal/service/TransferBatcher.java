@@ -0,0 +1,208 @@
+package com.financeportal.service;
+
+import com.financeportal.dao.DBConnection;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit transfer pipeline.
+ *
+ * Callers submit transfers and get a future. A single committer thread drains the queue
+ * into batches of up to maxBatchSize transfers (waiting at most maxLingerMs for a batch
+ * to fill) and applies each batch in ONE database transaction, so many transfers share
+ * one commit/fsync.
+ *
+ * Failure isolation:
+ *  - a business failure (insufficient funds, unknown account) rolls back to that item's
+ *    savepoint and fails only that item's future;
+ *  - if the batch as a whole fails (deadlock, lost connection, commit error) it is rolled
+ *    back and every remaining item is retried alone through TransactionService.transfer.
+ *
+ * The committer does not take the in-process account locks (one thread holding many
+ * stripes in batch order could deadlock with synchronous transfers); row locks in the
+ * database keep batched and synchronous transfers consistent.
+ *
+ * Settings (database.properties): service.batch.maxSize (default 100),
+ * service.batch.lingerMs (default 5).
+ */
+public final class TransferBatcher implements AutoCloseable {
+
+    /** Queued by close() to wake the committer; never interrupted, so its JDBC calls are not disturbed. */
+    private static final Item STOP = new Item(0, 0, null);
+
+    private final TransactionService service;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final BlockingQueue<Item> queue;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public TransferBatcher(TransactionService service) {
+        this(service,
+                DBConnection.getIntProperty("service.batch.maxSize", 100),
+                DBConnection.getLongProperty("service.batch.lingerMs", 5L));
+    }
+
+    public TransferBatcher(TransactionService service, int maxBatchSize, long maxLingerMs) {
+        if (service == null) throw new IllegalArgumentException("service required");
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be >= 1");
+        if (maxLingerMs < 0) throw new IllegalArgumentException("maxLingerMs must be >= 0");
+        this.service = service;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        // bounded so a stalled database pushes back on submitters instead of growing the heap
+        this.queue = new LinkedBlockingQueue<>(maxBatchSize * 64);
+        this.committer = new Thread(this::run, "transfer-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Queue a transfer. The future completes with true once its batch commits, or exceptionally
+     * with the same exception TransactionService.transfer would have thrown.
+     */
+    public CompletableFuture<Boolean> submit(int fromAccountId, int toAccountId, BigDecimal amount) {
+        TransactionService.validateTransfer(fromAccountId, toAccountId, amount);
+        if (!running) throw new IllegalStateException("TransferBatcher is closed");
+        Item item = new Item(fromAccountId, toAccountId, amount);
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            item.future.completeExceptionally(e);
+        }
+        return item.future;
+    }
+
+    /**
+     * Stop accepting transfers, commit what is queued, then stop the committer thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (committer.isAlive()) queue.put(STOP);
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything that raced past the running check after the final drain
+        Item late;
+        while ((late = queue.poll()) != null) {
+            if (late == STOP) continue;
+            late.future.completeExceptionally(new IllegalStateException("TransferBatcher is closed"));
+        }
+    }
+
+    private void run() {
+        List<Item> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Item first = stopping ? queue.poll() : queue.take();
+                if (first == null) break;
+                if (first == STOP) {
+                    // close() was called: commit what is still queued without waiting
+                    stopping = true;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Item next = remaining > 0 && !stopping ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    if (next == STOP) {
+                        stopping = true;
+                        continue;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // interrupted from outside (the flag is now clear): flush what is queued and stop
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                commitBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commitBatch(List<Item> batch) {
+        // one ledger hold per applied item while a LedgerEngine is running
+        List<LedgerEngine.Hold> holds = new ArrayList<>(batch.size());
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+                for (Item item : batch) {
+                    LedgerEngine.Hold hold;
+                    try {
+                        hold = LedgerEngine.holdTransfer(item.from, item.to, item.amount);
+                    } catch (IllegalStateException | IllegalArgumentException ex) {
+                        item.future.completeExceptionally(ex);
+                        continue;
+                    }
+                    holds.add(hold);
+                    Savepoint sp = conn.setSavepoint();
+                    try {
+                        service.applyTransfer(item.from, item.to, item.amount, conn);
+                        conn.releaseSavepoint(sp);
+                    } catch (IllegalStateException ex) {
+                        // business failure: undo just this item
+                        conn.rollback(sp);
+                        hold.close();
+                        item.future.completeExceptionally(ex);
+                    }
+                }
+                conn.commit();
+                for (LedgerEngine.Hold hold : holds) hold.confirm();
+                for (Item item : batch) item.future.complete(Boolean.TRUE);
+                return;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            // connection unavailable or rollback failed; items are retried alone below
+        } finally {
+            // no-op for confirmed holds
+            for (LedgerEngine.Hold hold : holds) hold.close();
+        }
+        retryAlone(batch);
+    }
+
+    private void retryAlone(List<Item> batch) {
+        for (Item item : batch) {
+            if (item.future.isDone()) continue;
+            try {
+                item.future.complete(service.transfer(item.from, item.to, item.amount));
+            } catch (Exception ex) {
+                item.future.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static final class Item {
+        final int from;
+        final int to;
+        final BigDecimal amount;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Item(int from, int to, BigDecimal amount) {
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.financeportal.service;
+
+import java.math.BigDecimal;
+
+/**
+ * One instruction of a bulk transfer file (payroll, settlement).
+ */
+public final class TransferRequest {
+    private final int fromAccountId;
+    private final int toAccountId;
+    private final BigDecimal amount;
+
+    public TransferRequest(int fromAccountId, int toAccountId, BigDecimal amount) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+    }
+
+    public int getFromAccountId() { return fromAccountId; }
+
+    public int getToAccountId() { return toAccountId; }
+
+    public BigDecimal getAmount() { return amount; }
+}
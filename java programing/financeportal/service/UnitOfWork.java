@@ -0,0 +1,122 @@
+package com.financeportal.service;
+
+import com.financeportal.dao.AccountDAO;
+import com.financeportal.dao.DBConnection;
+import com.financeportal.model.Account;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Collection;
+import java.util.SortedMap;
+
+/**
+ * Transactional unit of work over a set of accounts.
+ *
+ * execute(...) opens one transaction, locks every listed account row in ascending id order on
+ * that transaction's own connection (AccountDAO.lockForUpdate), runs the work with the locked
+ * rows and commits. Because every unit takes its row locks in the same global order, two units
+ * touching the same accounts cannot deadlock on them, and balances read from the locked rows
+ * stay valid until commit.
+ *
+ * Flows that lock other rows before their accounts (loan rows in LoanService) pass a PreLock:
+ * it runs first on the same transaction, so the unit keeps that flow's loan-then-account order.
+ *
+ * Deadlocks and lock-wait timeouts (SQLState 40001, MySQL errors 1213/1205) can still come from
+ * rows the work touches later; the whole unit is then rolled back and run again from scratch
+ * (service.uow.maxAttempts/baseDelayMs/maxDelayMs, defaults 3/5/200). The work must therefore
+ * have no side effects outside the connection it is given.
+ */
+public final class UnitOfWork {
+
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    private static final RetryPolicy LOCK_RETRY = new RetryPolicy(
+            DBConnection.getIntProperty("service.uow.maxAttempts", 3),
+            DBConnection.getLongProperty("service.uow.baseDelayMs", 5L),
+            DBConnection.getLongProperty("service.uow.maxDelayMs", 200L),
+            UnitOfWork::isLockConflict);
+
+    private static final AccountDAO ACCOUNTS = new AccountDAO();
+
+    /** The body of a unit of work; runs inside the transaction, must not commit. */
+    public interface Work<T> {
+        /**
+         * @param locked the locked accounts in ascending id order (missing ids are absent)
+         */
+        T run(Connection conn, SortedMap<Integer, Account> locked) throws SQLException;
+    }
+
+    /** Locks taken before the account rows, on the unit's transaction. */
+    public interface PreLock<L> {
+        L lock(Connection conn) throws SQLException;
+    }
+
+    /** Work that also receives what its PreLock locked. */
+    public interface PreLockedWork<L, T> {
+        T run(Connection conn, L preLocked, SortedMap<Integer, Account> locked) throws SQLException;
+    }
+
+    private UnitOfWork() {}
+
+    /**
+     * Run work in one transaction with the given account rows locked in ascending id order,
+     * retrying the whole unit on deadlock or lock-wait timeout.
+     */
+    public static <T> T execute(Collection<Integer> accountIds, Work<T> work) throws SQLException {
+        return execute(conn -> null, accountIds, (conn, none, locked) -> work.run(conn, locked));
+    }
+
+    /**
+     * Like execute(accountIds, work), but runs preLock before the account rows are locked.
+     */
+    public static <L, T> T execute(PreLock<L> preLock, Collection<Integer> accountIds, PreLockedWork<L, T> work)
+            throws SQLException {
+        return LOCK_RETRY.execute(() -> runOnce(preLock, accountIds, work));
+    }
+
+    private static <L, T> T runOnce(PreLock<L> preLock, Collection<Integer> accountIds, PreLockedWork<L, T> work)
+            throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                conn.setAutoCommit(false);
+
+                L preLocked = preLock.lock(conn);
+                SortedMap<Integer, Account> locked = ACCOUNTS.lockForUpdate(accountIds, conn);
+                T result = work.run(conn, preLocked, locked);
+
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * True if the failure is a deadlock or lock-wait timeout, i.e. the transaction can be retried as is.
+     * Looks through the cause chain and chained SQLExceptions.
+     */
+    public static boolean isLockConflict(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (!(c instanceof SQLException)) continue;
+            for (SQLException s = (SQLException) c; s != null; s = s.getNextException()) {
+                if (s instanceof SQLTransactionRollbackException) return true;
+                if ("40001".equals(s.getSQLState())) return true;
+                if (s.getErrorCode() == MYSQL_DEADLOCK || s.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retry policy (and retry metrics) used for lock conflicts.
+     */
+    public static RetryPolicy getRetryPolicy() {
+        return LOCK_RETRY;
+    }
+}
@@ -0,0 +1,107 @@
+package com.financeportal.test;
+
+import com.financeportal.model.AmortizationSchedule;
+import com.financeportal.model.Loan;
+import com.financeportal.service.AmortizationEngine;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Unit tests for AmortizationEngine / AmortizationSchedule (no database needed).
+ * Reference loan: 1200.00 at 12% a year over 12 months, annuity, started 2025-01-15.
+ */
+public class AmortizationScheduleTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 15);
+
+    private static AmortizationSchedule annuity() {
+        Loan loan = new Loan();
+        loan.setLoanID(7);
+        loan.setPrincipal(new BigDecimal("1200.00"));
+        loan.setInterestRate(new BigDecimal("0.12"));
+        loan.setTermMonths(12);
+        loan.setRepaymentType(AmortizationSchedule.ANNUITY);
+        return AmortizationEngine.build(loan, START);
+    }
+
+    @Test
+    public void annuity_levelPaymentsAndExactPrincipal() {
+        AmortizationSchedule s = annuity();
+        assertEquals(12, s.getInstallmentCount());
+        assertEquals(LocalDate.of(2025, 2, 15), s.getDueDate(1));
+        assertEquals(LocalDate.of(2026, 1, 15), s.getDueDate(12));
+        for (int k = 1; k < 12; k++) assertEquals(10_662L, s.getPaymentCents(k), "installment " + k);
+        // rounding residue goes to the last installment
+        assertEquals(10_660L, s.getPaymentCents(12));
+        assertEquals(120_000L, s.getPrincipalTotalCents());
+        assertEquals(7_942L, s.getInterestTotalCents());
+        assertEquals(0L, s.getBalanceAfterCents(12));
+    }
+
+    @Test
+    public void annuity_interestOnRunningBalance() {
+        AmortizationSchedule s = annuity();
+        assertEquals(1_200L, s.getInterestCents(1));
+        assertEquals(9_462L, s.getPrincipalCents(1));
+        assertEquals(110_538L, s.getBalanceAfterCents(1));
+        // 1% of 110538 = 1105.38
+        assertEquals(1_105L, s.getInterestCents(2));
+    }
+
+    @Test
+    public void interestPortion_interestFirstPerInstallment() {
+        AmortizationSchedule s = annuity();
+        // smaller than the first installment's interest: all interest
+        assertEquals(500L, s.interestPortionCents(0, 500));
+        // exactly the first installment
+        assertEquals(1_200L, s.interestPortionCents(0, 10_662));
+        // spans into the second installment, which again pays its interest first
+        assertEquals(1_200L + 1_105L, s.interestPortionCents(0, 15_000));
+        // after the first installment, the next 1000 are interest of the second
+        assertEquals(1_000L, s.interestPortionCents(10_662, 1_000));
+        // beyond the schedule total everything is principal
+        assertEquals(0L, s.interestPortionCents(s.getTotalCents(), 5_000));
+    }
+
+    @Test
+    public void payoffQuote_accruesRunningInstallmentByDays() {
+        AmortizationSchedule s = annuity();
+        assertEquals(120_000L, s.payoffQuoteCents(0, START));
+        // 15 of 31 days into the first period: 1200 * 15 / 31 = 580.6
+        assertEquals(120_580L, s.payoffQuoteCents(0, LocalDate.of(2025, 1, 30)));
+        // first installment paid, quoted on its due date
+        assertEquals(110_538L, s.payoffQuoteCents(10_662, LocalDate.of(2025, 2, 15)));
+        // part of the running installment already paid is deducted
+        assertEquals(120_000L - 500L, s.payoffQuoteCents(500, START));
+        assertEquals(0L, s.payoffQuoteCents(s.getTotalCents(), LocalDate.of(2026, 6, 1)));
+    }
+
+    @Test
+    public void installmentsCoveredBy_countsFullyPaidInstallments() {
+        AmortizationSchedule s = annuity();
+        assertEquals(0, s.installmentsCoveredBy(0));
+        assertEquals(0, s.installmentsCoveredBy(10_661));
+        assertEquals(1, s.installmentsCoveredBy(10_662));
+        assertEquals(12, s.installmentsCoveredBy(s.getTotalCents()));
+        assertEquals(12, s.installmentsCoveredBy(s.getTotalCents() + 1));
+    }
+
+    @Test
+    public void installmentsCoveredBy_zeroPaymentInstallmentsAreCovered() {
+        // two payment-free grace months: the prefix sums 0, 0, 0, 220 repeat
+        LocalDate[] due = {START.plusMonths(1), START.plusMonths(2), START.plusMonths(3)};
+        AmortizationSchedule s = new AmortizationSchedule(1, AmortizationSchedule.ANNUITY, due,
+                new long[]{0, 0, 200}, new long[]{0, 0, 20});
+        assertEquals(2, s.installmentsCoveredBy(0));
+        assertEquals(2, s.installmentsCoveredBy(-5));
+        assertEquals(2, s.installmentsCoveredBy(219));
+        assertEquals(3, s.installmentsCoveredBy(220));
+        // the running installment is the first one that charges anything
+        assertEquals(200L, s.payoffQuoteCents(0, due[1]));
+        assertEquals(20L, s.interestPortionCents(0, 50));
+    }
+}
@@ -0,0 +1,55 @@
+package com.financeportal.test;
+
+import com.financeportal.util.FixedPoint;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Unit tests for FixedPoint (no database needed).
+ */
+public class FixedPointTest {
+
+    @Test
+    public void toCents_roundsHalfUpAwayFromZero() {
+        assertEquals(1234L, FixedPoint.toCents(new BigDecimal("12.34")));
+        assertEquals(101L, FixedPoint.toCents(new BigDecimal("1.005")));
+        assertEquals(100L, FixedPoint.toCents(new BigDecimal("1.0049")));
+        assertEquals(-101L, FixedPoint.toCents(new BigDecimal("-1.005")));
+        assertEquals(500L, FixedPoint.toCents(new BigDecimal("5")));
+    }
+
+    @Test
+    public void fromCents_hasScaleTwo() {
+        assertEquals(new BigDecimal("-0.05"), FixedPoint.fromCents(-5));
+        assertEquals(new BigDecimal("1200.00"), FixedPoint.fromCents(120_000));
+    }
+
+    @Test
+    public void rateToNanos_dividesAnnualRate() {
+        assertEquals(5_000_000L, FixedPoint.rateToNanos(new BigDecimal("0.06"), 12));
+        assertEquals(50_000_000L, FixedPoint.rateToNanos(new BigDecimal("0.05"), 1));
+        assertEquals(0L, FixedPoint.rateToNanos(null, 12));
+    }
+
+    @Test
+    public void mulDivRound_roundsHalfAwayFromZero() {
+        assertEquals(3L, FixedPoint.mulDivRound(5, 1, 2));
+        assertEquals(-3L, FixedPoint.mulDivRound(-5, 1, 2));
+        assertEquals(2L, FixedPoint.mulDivRound(7, 1, 3));
+        assertEquals(1200L, FixedPoint.mulDivRound(120_000, 10_000_000, FixedPoint.RATE_SCALE));
+    }
+
+    @Test
+    public void mulDivRound_survivesOverflowingProduct() {
+        // Long.MAX_VALUE * 2 overflows; the exact quotient is ...903.5
+        assertEquals(4_611_686_018_427_387_904L, FixedPoint.mulDivRound(Long.MAX_VALUE, 2, 4));
+    }
+
+    @Test
+    public void mulDivRound_rejectsNonPositiveDivisor() {
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.mulDivRound(1, 1, 0));
+    }
+}
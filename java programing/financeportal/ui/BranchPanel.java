@@ -27,18 +27,21 @@ public class BranchPanel extends JPanel {
         add(new JScrollPane(table), BorderLayout.CENTER);
 
         JButton refresh = new JButton("Refresh");
-        refresh.addActionListener(e -> loadBranches());
+        refresh.addActionListener(e -> reloadBranches());
         add(refresh, BorderLayout.SOUTH);
 
         loadBranches();
     }
 
+    /**
+     * Show branches from the in-memory snapshot (no database access once it is loaded).
+     */
     private void loadBranches() {
         model.setRowCount(0);
         new SwingWorker<List<Branch>, Void>() {
             @Override
             protected List<Branch> doInBackground() throws Exception {
-                return branchDAO.listAll();
+                return branchDAO.snapshot().list();
             }
             @Override
             protected void done() {
@@ -61,4 +64,26 @@ public class BranchPanel extends JPanel {
             }
         }.execute();
     }
+
+    /**
+     * Explicit refresh: reload the snapshot from the database, then redraw.
+     */
+    private void reloadBranches() {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                BranchDAO.refreshSnapshot();
+                return null;
+            }
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(BranchPanel.this, "Failed to refresh branches: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+                loadBranches();
+            }
+        }.execute();
+    }
 }
@@ -1,7 +1,5 @@
 package com.financeportal.ui;
 
-import com.financeportal.dao.AccountDAO;
-import com.financeportal.model.Account;
 import com.financeportal.model.AccountHolder;
 import com.financeportal.model.Transaction;
 import com.financeportal.service.TransactionService;
@@ -18,9 +16,10 @@ import java.util.List;
  */
 public class TransactionPanel extends JPanel {
 
+    private static final int HISTORY_LIMIT = 200;
+
     private final AccountHolder currentUser;
     private final TransactionDAO transactionDAO = new TransactionDAO();
-    private final AccountDAO accountDAO = new AccountDAO();
     private final TransactionService transactionService = new TransactionService();
 
     private final JTable table;
@@ -102,15 +101,8 @@ public class TransactionPanel extends JPanel {
         SwingWorker<List<Transaction>, Void> worker = new SwingWorker<>() {
             @Override
             protected List<Transaction> doInBackground() throws Exception {
-                // show transactions for all accounts of the holder (limited)
-                List<Account> accounts = accountDAO.listByHolder(currentUser.getAccountHolderID());
-                java.util.List<Transaction> all = new java.util.ArrayList<>();
-                if (accounts != null) {
-                    for (Account a : accounts) {
-                        all.addAll(transactionDAO.listByAccount(a.getAccountID(), 50));
-                    }
-                }
-                return all;
+                // newest transactions across all accounts of the holder, one query
+                return transactionDAO.listByHolder(currentUser.getAccountHolderID(), HISTORY_LIMIT);
             }
 
             @Override
@@ -0,0 +1,58 @@
+package com.financeportal.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money helpers.
+ *
+ * Amounts are long cents; rates are long "nanos" (rate x 1e9, e.g. 0.05 -> 50_000_000).
+ * mulDivRound rounds half away from zero and only falls back to BigInteger when a*b overflows.
+ */
+public final class FixedPoint {
+
+    /** Scale of a rate in nanos. */
+    public static final long RATE_SCALE = 1_000_000_000L;
+
+    private FixedPoint() {}
+
+    /**
+     * BigDecimal amount to cents (amounts with more than two decimals are rounded half-up).
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * rate / divisor in nanos, e.g. rateToNanos(annualRate, 12) is the monthly rate.
+     */
+    public static long rateToNanos(BigDecimal rate, int divisor) {
+        if (rate == null) return 0;
+        return rate.movePointRight(9).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    /**
+     * round(a * b / d), half away from zero; d must be positive.
+     */
+    public static long mulDivRound(long a, long b, long d) {
+        if (d <= 0) throw new IllegalArgumentException("divisor must be positive");
+        long p;
+        try {
+            p = Math.multiplyExact(a, b);
+        } catch (ArithmeticException overflow) {
+            BigInteger[] qr = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).divideAndRemainder(BigInteger.valueOf(d));
+            long q = qr[0].longValueExact();
+            if (qr[1].abs().shiftLeft(1).compareTo(BigInteger.valueOf(d)) >= 0) q += qr[1].signum();
+            return q;
+        }
+        long q = p / d;
+        long r = p % d;
+        if (Math.abs(r) >= d - Math.abs(r)) q += Long.signum(p);
+        return q;
+    }
+}
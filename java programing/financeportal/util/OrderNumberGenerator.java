@@ -0,0 +1,89 @@
+package com.financeportal.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, monotonic id generator for order numbers (timestamp + node id + sequence).
+ *
+ * Layout of the 63-bit id:
+ *   41 bits  milliseconds since 2024-01-01T00:00Z (good for ~69 years)
+ *   10 bits  node id (0-1023), so several app instances never collide
+ *   12 bits  per-millisecond sequence (4096 ids per ms per node)
+ *
+ * The millisecond and sequence live in one AtomicLong updated by CAS. If a millisecond's
+ * sequence runs out, the generator moves on to the next millisecond instead of waiting, so
+ * ids stay unique and strictly increasing; the clock going backwards is handled the same way.
+ *
+ * Order numbers are rendered as prefix + 13 base-36 digits (+ optional suffix), e.g.
+ * "TR-0F1K9ZQ3B2X7A-D". Fixed width keeps them sortable as strings, i.e. roughly time ordered.
+ *
+ * The shared instance takes its node id from the system property financeportal.nodeId (default 0).
+ */
+public final class OrderNumberGenerator {
+
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int WIDTH = 13; // Long.MAX_VALUE in base 36
+
+    private static final OrderNumberGenerator SHARED =
+            new OrderNumberGenerator(Integer.getInteger("financeportal.nodeId", 0));
+
+    private final long node;
+    // (millis since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public OrderNumberGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE)
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE);
+        this.node = nodeId;
+    }
+
+    /** Generator shared by the services. */
+    public static OrderNumberGenerator shared() {
+        return SHARED;
+    }
+
+    /**
+     * Next unique id; strictly greater than every id previously returned by this instance.
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long prev = last.get();
+            // new millisecond -> sequence 0; same (or earlier) millisecond -> previous + 1,
+            // which carries into the next millisecond when the sequence overflows
+            long next = now > prev ? now : prev + 1;
+            if (last.compareAndSet(prev, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long seq = next & SEQUENCE_MASK;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | seq;
+            }
+        }
+    }
+
+    /**
+     * Order number of the form prefix + id (13 base-36 digits).
+     */
+    public String next(String prefix) {
+        return prefix + format(nextId());
+    }
+
+    /**
+     * Order number of the form prefix + id + suffix.
+     */
+    public String next(String prefix, String suffix) {
+        return prefix + format(nextId()) + suffix;
+    }
+
+    private static String format(long id) {
+        String s = Long.toString(id, 36).toUpperCase();
+        if (s.length() >= WIDTH) return s;
+        StringBuilder sb = new StringBuilder(WIDTH);
+        for (int i = s.length(); i < WIDTH; i++) sb.append('0');
+        return sb.append(s).toString();
+    }
+}